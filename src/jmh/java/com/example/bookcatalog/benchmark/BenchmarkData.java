@@ -0,0 +1,71 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.repository.BookField;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic catalog rows shaped like production data (mixed title lengths,
+ * two-decimal prices, spread publish dates).
+ */
+final class BenchmarkData {
+
+    private static final String[] WORDS = {
+            "Reactive", "Spring", "Clean", "Code", "Java", "Patterns", "Domain", "Driven",
+            "Design", "Effective", "Concurrency", "Practice", "Systems", "Data", "Intensive"
+    };
+
+    private BenchmarkData() {
+    }
+
+    static List<Book> books(int count) {
+
+        List<Book> books = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Book book = new Book(
+                    (long) i + 1,
+                    title(i),
+                    "Author " + (i % 997),
+                    BigDecimal.valueOf(1000 + (i * 37L) % 9000, 2),
+                    LocalDate.of(1990, 1, 1).plusDays(i % 12000)
+            );
+            book.setVersion(0L);
+            book.setUpdatedAt(Instant.EPOCH);
+            books.add(book);
+        }
+
+        return books;
+    }
+
+    // The value the driver would decode for the field's column
+    static Object read(BookField field, Book book) {
+        return switch (field) {
+            case ID -> book.getId();
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case PRICE -> book.getPrice();
+            case PUBLISH_DATE -> book.getPublishDate();
+        };
+    }
+
+    private static String title(int i) {
+
+        StringBuilder title = new StringBuilder();
+        int words = 2 + i % 5;
+
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[(i + w * 7) % WORDS.length]);
+        }
+
+        return title.append(' ').append(i).toString();
+    }
+}
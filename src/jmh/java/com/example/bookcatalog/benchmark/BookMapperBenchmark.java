@@ -0,0 +1,54 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.mapper.BookMapper;
+import com.example.bookcatalog.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of one page, for both response shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int size;
+
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkData.books(size);
+    }
+
+    @Benchmark
+    public List<?> toMinimalDto() {
+        return books.stream()
+                .map(BookMapper::toMinimalDto)
+                .toList();
+    }
+
+    @Benchmark
+    public List<?> toFullDto() {
+        return books.stream()
+                .map(BookMapper::toFullDto)
+                .toList();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.config.BatchProperties;
+import com.example.bookcatalog.config.DatabaseRouting;
+import com.example.bookcatalog.config.ListingProperties;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.services.BookServiceImpl;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BookServiceImpl#getAll} end to end (count/page zip, collect, mapping)
+ * over an in-memory repository, with the caches disabled so every call runs the
+ * whole pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetAllPipelineBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"5", "50", "500"})
+    private int size;
+
+    @Param({"minimal", "full"})
+    private String dto;
+
+    @Param({"exact", "none"})
+    private String total;
+
+    // true also renders the JSON that the DTO path leaves to Jackson; ListingAllocationBenchmark compares both end to end
+    @Param({"false", "true"})
+    private boolean directJson;
+
+    private BookServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        service = new BookServiceImpl(
+                new InMemoryBookRepository(BenchmarkData.books(CATALOG_SIZE)),
+                Optional.empty(),
+                Optional.empty(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new BatchProperties(500),
+                new ListingProperties(directJson, 500, Duration.ofSeconds(1)),
+                new DatabaseRouting(Duration.ZERO));
+    }
+
+    @Benchmark
+    public PaginatedBooks getAll() {
+        return service.getAll(1, size, null, null, null, null, null, dto, null, total, null).block();
+    }
+}
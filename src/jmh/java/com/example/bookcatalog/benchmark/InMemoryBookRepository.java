@@ -0,0 +1,219 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.model.CatalogChange;
+import com.example.bookcatalog.repository.BookFilter;
+import com.example.bookcatalog.repository.BookJsonRows;
+import com.example.bookcatalog.repository.BookProjection;
+import com.example.bookcatalog.repository.BookRepository;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Read-only {@link BookRepository} over a fixed list ordered by id, so service
+ * benchmarks run without Postgres. Only the unfiltered catalog is supported;
+ * writes are rejected.
+ */
+final class InMemoryBookRepository implements BookRepository {
+
+    private final List<Book> books;
+
+    InMemoryBookRepository(List<Book> books) {
+        this.books = List.copyOf(books);
+    }
+
+    @Override
+    public <T> Flux<T> findFiltered(BookFilter filter, long offset, int limit, BookProjection<T> projection) {
+        return page(filter, offset, limit).map(book -> projection.map(field -> BenchmarkData.read(field, book)));
+    }
+
+    @Override
+    public <T> Flux<T> findFilteredAfter(BookFilter filter, long lastId, int limit, BookProjection<T> projection) {
+        return pageAfter(filter, lastId, limit).map(book -> projection.map(field -> BenchmarkData.read(field, book)));
+    }
+
+    @Override
+    public Mono<BookJsonRows> writeFiltered(BookFilter filter, long offset, int limit, BookJsonRows rows) {
+        return page(filter, offset, limit)
+                .map(book -> rows.write(field -> BenchmarkData.read(field, book)))
+                .then(Mono.fromSupplier(rows::finish));
+    }
+
+    @Override
+    public Mono<BookJsonRows> writeFilteredAfter(BookFilter filter, long lastId, int limit, BookJsonRows rows) {
+        return pageAfter(filter, lastId, limit)
+                .map(book -> rows.write(field -> BenchmarkData.read(field, book)))
+                .then(Mono.fromSupplier(rows::finish));
+    }
+
+    private Flux<Book> page(BookFilter filter, long offset, int limit) {
+        requireUnfiltered(filter);
+        int from = (int) Math.min(offset, books.size());
+        return Flux.fromIterable(books.subList(from, Math.min(from + limit, books.size())));
+    }
+
+    private Flux<Book> pageAfter(BookFilter filter, long lastId, int limit) {
+        requireUnfiltered(filter);
+        return Flux.fromIterable(books)
+                .filter(book -> book.getId() > lastId)
+                .take(limit);
+    }
+
+    @Override
+    public Mono<Long> countFiltered(BookFilter filter) {
+        requireUnfiltered(filter);
+        return Mono.just((long) books.size());
+    }
+
+    @Override
+    public Mono<Long> estimateFiltered(BookFilter filter) {
+        return countFiltered(filter);
+    }
+
+    @Override
+    public <T> Flux<T> streamFiltered(BookFilter filter, BookProjection<T> projection) {
+        requireUnfiltered(filter);
+        return Flux.fromIterable(books).map(book -> projection.map(field -> BenchmarkData.read(field, book)));
+    }
+
+    @Override
+    public Mono<CatalogChange> findLastChange() {
+        return Mono.just(new CatalogChange(0L, 0L, Instant.EPOCH));
+    }
+
+    @Override
+    public Mono<Book> findById(Long id) {
+        return id >= 1 && id <= books.size() ? Mono.just(books.get((int) (id - 1))) : Mono.empty();
+    }
+
+    @Override
+    public Mono<Book> findById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return findById(id).hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Book> findAll() {
+        return Flux.fromIterable(books);
+    }
+
+    @Override
+    public Flux<Book> findAllById(Iterable<Long> ids) {
+        return Flux.fromIterable(ids).flatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Book> findAllById(Publisher<Long> idStream) {
+        return Flux.from(idStream).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.just((long) books.size());
+    }
+
+    // ===== writes are out of scope for the benchmarks =====
+
+    @Override
+    public Flux<Long> insertAll(List<Book> books) {
+        return Flux.error(readOnly());
+    }
+
+    @Override
+    public Flux<Long> updateAll(List<Book> patches) {
+        return Flux.error(readOnly());
+    }
+
+    @Override
+    public Flux<Long> deleteByIds(List<Long> ids) {
+        return Flux.error(readOnly());
+    }
+
+    @Override
+    public Flux<Long> deleteFiltered(BookFilter filter, int limit) {
+        return Flux.error(readOnly());
+    }
+
+    @Override
+    public Mono<Book> updateReturning(Book book) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Long> deleteReturningId(Long id, Long expectedVersion) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public <S extends Book> Mono<S> save(S entity) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public <S extends Book> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.error(readOnly());
+    }
+
+    @Override
+    public <S extends Book> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> delete(Book entity) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Book> entities) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Book> entityStream) {
+        return Mono.error(readOnly());
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.error(readOnly());
+    }
+
+    private static void requireUnfiltered(BookFilter filter) {
+        if (!BookFilter.none().equals(filter)) {
+            throw new UnsupportedOperationException("In-memory repository does not evaluate filters");
+        }
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("In-memory benchmark repository is read-only");
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.config.PaginatedBooksEncoder;
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.mapper.BookMapper;
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.repository.BookField;
+import com.example.bookcatalog.repository.BookJsonRows;
+import com.example.bookcatalog.repository.BookProjection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code GET /books?dto=full} response, from decoded row values to the
+ * response {@link DataBuffer}, through the encoder the application registers:
+ * <ul>
+ *     <li>{@code entity}: row -> {@code Book} -> {@code BookFullDto} list -> Jackson (before projections)</li>
+ *     <li>{@code dto}: row -> {@code BookFullDto} list -> Jackson ({@code direct-json=false})</li>
+ *     <li>{@code json}: row -> {@link BookJsonRows} -> envelope + books bytes ({@code direct-json=true})</li>
+ * </ul>
+ * With {@code cached=true} the page is built once and only encoded, as for a
+ * page cache hit. Rows are pre-decoded {@code Object[]}s, so driver decoding
+ * (the same in every path) is left out, and buffers come from Netty's pooled
+ * allocator as on Reactor Netty.
+ * <p>
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the heap
+ * bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListingAllocationBenchmark {
+
+    private static final ResolvableType PAGE_TYPE = ResolvableType.forClass(PaginatedBooks.class);
+
+    @Param({"50", "500"})
+    private int size;
+
+    @Param({"entity", "dto", "json"})
+    private String path;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private PaginatedBooksEncoder encoder;
+    private NettyDataBufferFactory bufferFactory;
+    private List<Object[]> rows;
+    private PaginatedBooks cachedPage;
+
+    @Setup
+    public void setUp() {
+
+        // Dates as ISO strings, as Spring Boot configures it, so every path produces the same body
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        encoder = new PaginatedBooksEncoder(objectMapper);
+        bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        rows = new ArrayList<>(size);
+
+        for (Book book : BenchmarkData.books(size)) {
+            Object[] row = new Object[BookField.values().length];
+            for (BookField field : BookField.values()) {
+                row[field.ordinal()] = BenchmarkData.read(field, book);
+            }
+            rows.add(row);
+        }
+
+        cachedPage = page();
+    }
+
+    @Benchmark
+    public int respond() {
+
+        DataBuffer body = encoder.encodeValue(cached ? cachedPage : page(), bufferFactory, PAGE_TYPE,
+                MediaType.APPLICATION_JSON, Map.of());
+
+        int length = body.readableByteCount();
+        DataBufferUtils.release(body);
+        return length;
+    }
+
+    private PaginatedBooks page() {
+        return switch (path) {
+            case "entity" -> viaEntity();
+            case "dto" -> viaDto();
+            default -> viaJson();
+        };
+    }
+
+    private PaginatedBooks viaEntity() {
+
+        List<BookFullDto> books = new ArrayList<>();
+        for (Object[] row : rows) {
+            Book book = new Book(
+                    (Long) row[BookField.ID.ordinal()],
+                    (String) row[BookField.TITLE.ordinal()],
+                    (String) row[BookField.AUTHOR.ordinal()],
+                    (BigDecimal) row[BookField.PRICE.ordinal()],
+                    (LocalDate) row[BookField.PUBLISH_DATE.ordinal()]);
+            books.add(BookMapper.toFullDto(book));
+        }
+
+        return new PaginatedBooks(10_000L, books, 0, size, "aWQ6NTAw", true, false);
+    }
+
+    private PaginatedBooks viaDto() {
+
+        List<BookFullDto> books = new ArrayList<>();
+        for (Object[] row : rows) {
+            books.add(BookProjection.FULL.map(field -> row[field.ordinal()]));
+        }
+
+        return new PaginatedBooks(10_000L, books, 0, size, "aWQ6NTAw", true, false);
+    }
+
+    private PaginatedBooks viaJson() {
+
+        BookJsonRows page = new BookJsonRows(BookProjection.FULL, size);
+        for (Object[] row : rows) {
+            page.write(field -> row[field.ordinal()]);
+        }
+        page.finish();
+
+        return new PaginatedBooks(10_000L, page.json(), 0, size, "aWQ6NTAw", true, false);
+    }
+}
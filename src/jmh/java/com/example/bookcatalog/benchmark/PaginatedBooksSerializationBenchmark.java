@@ -0,0 +1,62 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.mapper.BookMapper;
+import com.example.bookcatalog.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a {@link PaginatedBooks} response body, using the
+ * same modules Spring Boot registers (JSR-310 for {@code publishDate}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginatedBooksSerializationBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int size;
+
+    @Param({"minimal", "full"})
+    private String dto;
+
+    private ObjectWriter writer;
+    private PaginatedBooks page;
+
+    @Setup
+    public void setUp() {
+
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+
+        List<Book> books = BenchmarkData.books(size);
+        List<?> content = "minimal".equals(dto)
+                ? books.stream().map(BookMapper::toMinimalDto).toList()
+                : books.stream().map(BookMapper::toFullDto).toList();
+
+        page = new PaginatedBooks(10_000L, content, 0, size, "aWQ6NTAw", true, false);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.config.BookCborEncoder;
+import com.example.bookcatalog.config.BookProtobufEncoder;
+import com.example.bookcatalog.config.BookProtobufReader;
+import com.example.bookcatalog.config.PaginatedBooksEncoder;
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.mapper.BookMapper;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code GET /books?dto=full} page in each negotiable format: {@code encode}
+ * is the server side through the encoder the application registers,
+ * {@code decode} a client reading the body back into its own types.
+ * <p>
+ * The body size of every combination is printed during setup; run with
+ * {@code -prof gc} to compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    private static final ResolvableType PAGE_TYPE = ResolvableType.forClass(PaginatedBooks.class);
+
+    private static final DefaultDataBufferFactory BUFFERS = DefaultDataBufferFactory.sharedInstance;
+
+    @Param({"50", "500"})
+    private int size;
+
+    @Param({"json", "cbor", "protobuf"})
+    private String format;
+
+    private HttpMessageEncoder<?> encoder;
+    private MediaType mediaType;
+    private ObjectReader clientReader;
+    private PaginatedBooks page;
+    private byte[] body;
+
+    // What a client would declare; unknown properties are ignored as clients usually do
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ClientPage(Long total, String nextCursor, boolean hasNext, List<BookFullDto> books) {
+    }
+
+    @Setup
+    public void setUp() {
+
+        // Dates as ISO strings, as Spring Boot configures it
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(new CBORFactory())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        switch (format) {
+            case "json" -> {
+                encoder = new PaginatedBooksEncoder(objectMapper);
+                mediaType = MediaType.APPLICATION_JSON;
+                clientReader = objectMapper.readerFor(ClientPage.class);
+            }
+            case "cbor" -> {
+                encoder = new BookCborEncoder(cborMapper);
+                mediaType = MediaType.APPLICATION_CBOR;
+                clientReader = cborMapper.readerFor(ClientPage.class);
+            }
+            default -> {
+                encoder = new BookProtobufEncoder(objectMapper);
+                mediaType = BookProtobufEncoder.APPLICATION_PROTOBUF;
+            }
+        }
+
+        List<BookFullDto> books = BenchmarkData.books(size).stream().map(BookMapper::toFullDto).toList();
+        page = new PaginatedBooks(10_000L, books, 0, size, "aWQ6NTAw", true, false);
+
+        DataBuffer buffer = encodeValue();
+        body = new byte[buffer.readableByteCount()];
+        buffer.read(body);
+        DataBufferUtils.release(buffer);
+
+        System.out.printf("%n%s, %d books: %d bytes%n", format, size, body.length);
+    }
+
+    @Benchmark
+    public int encode() {
+
+        DataBuffer buffer = encodeValue();
+        int length = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return length;
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return clientReader != null ? clientReader.readValue(body) : BookProtobufReader.readPage(body);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataBuffer encodeValue() {
+        return ((HttpMessageEncoder<Object>) encoder).encodeValue(page, BUFFERS, PAGE_TYPE, mediaType, Map.of());
+    }
+}
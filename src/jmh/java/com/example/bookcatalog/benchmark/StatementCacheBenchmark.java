@@ -0,0 +1,140 @@
+package com.example.bookcatalog.benchmark;
+
+import com.example.bookcatalog.config.StreamProperties;
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.repository.BookFilter;
+import com.example.bookcatalog.repository.BookProjection;
+import com.example.bookcatalog.repository.BookRepositoryCustomImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot repository queries against a real Postgres 17 (Testcontainers), with
+ * and without the driver's prepared statement cache and binary transfer.
+ * <p>
+ * With {@code cacheQueries=0} every execution sends Parse/Describe for the SQL
+ * text and Postgres plans it again; with the cache each pooled connection
+ * parses a query shape once and then only sends Bind/Execute. Sixteen threads
+ * keep the pool busy so the difference shows up as throughput.
+ * <p>
+ * Needs Docker: {@code ./mvnw -Pjmh verify -Djmh.args="StatementCache"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+    private static final int CATALOG_SIZE = 100_000;
+
+    @Param({"0", "256"})
+    private int cacheQueries;
+
+    @Param({"false", "true"})
+    private boolean forceBinary;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConnectionPool pool;
+    private R2dbcEntityTemplate template;
+    private BookRepositoryCustomImpl repository;
+
+    private final BookFilter byAuthorAndDate =
+            new BookFilter(null, null, "Author 42", LocalDate.of(1995, 1, 1), LocalDate.of(2020, 1, 1));
+
+    @Setup
+    public void setUp() {
+
+        postgres = new PostgreSQLContainer<>("postgres:17");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(new PostgresqlConnectionFactory(
+                        PostgresqlConnectionConfiguration.builder()
+                                .host(postgres.getHost())
+                                .port(postgres.getFirstMappedPort())
+                                .database(postgres.getDatabaseName())
+                                .username(postgres.getUsername())
+                                .password(postgres.getPassword())
+                                .preparedStatementCacheQueries(cacheQueries)
+                                .forceBinary(forceBinary)
+                                .build()))
+                .initialSize(16)
+                .maxSize(16)
+                .build());
+
+        template = new R2dbcEntityTemplate(pool);
+        repository = new BookRepositoryCustomImpl(template, new R2dbcTransactionManager(pool),
+                new StreamProperties(500), new SimpleMeterRegistry());
+
+        template.getDatabaseClient().sql("""
+                        INSERT INTO book (title, author, price, publish_date)
+                        SELECT 'Bench book ' || g,
+                               'Author ' || (g % 1000),
+                               ((g % 9000) + 100) / 100.0,
+                               DATE '1990-01-01' + (g % 12000)::int
+                        FROM generate_series(1, :n) AS g
+                        """)
+                .bind("n", CATALOG_SIZE)
+                .then()
+                .then(template.getDatabaseClient().sql("ANALYZE book").then())
+                .block(Duration.ofMinutes(5));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<BookFullDto> findFiltered() {
+        long offset = 20L * ThreadLocalRandom.current().nextInt(100);
+        return repository.findFiltered(byAuthorAndDate, offset, 20, BookProjection.FULL).collectList().block();
+    }
+
+    @Benchmark
+    public Long countFiltered() {
+        return repository.countFiltered(byAuthorAndDate).block();
+    }
+
+    @Benchmark
+    public Book findById() {
+        long id = 1 + ThreadLocalRandom.current().nextLong(CATALOG_SIZE);
+        return repository.findById(id).block();
+    }
+}
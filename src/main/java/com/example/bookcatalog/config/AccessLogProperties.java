@@ -0,0 +1,18 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled       registers the access-log filter at all
+ * @param sampleRate    fraction (0..1) of ordinary requests that get an access-log line
+ * @param slowThreshold requests at least this slow are always logged, as are 5xx responses
+ */
+@ConfigurationProperties(prefix = "bookcatalog.access-log")
+public record AccessLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.01") double sampleRate,
+        @DefaultValue("500ms") Duration slowThreshold) {
+}
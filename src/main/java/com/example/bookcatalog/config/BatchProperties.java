@@ -0,0 +1,19 @@
+package com.example.bookcatalog.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * @param chunkSize rows validated and written per statement batch and transaction. At most
+ *                  {@value #MAX_CHUNK_SIZE}: the bulk update binds 5 parameters per row and
+ *                  PostgreSQL accepts at most 32767 per statement
+ */
+@Validated
+@ConfigurationProperties(prefix = "bookcatalog.batch")
+public record BatchProperties(@DefaultValue("500") @Min(1) @Max(MAX_CHUNK_SIZE) int chunkSize) {
+
+    public static final int MAX_CHUNK_SIZE = 32_767 / 5;
+}
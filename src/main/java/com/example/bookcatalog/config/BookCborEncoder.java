@@ -0,0 +1,56 @@
+package com.example.bookcatalog.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CBOR for listings and the export stream. Spring's CBOR encoder only writes
+ * single values; a stream is written here as one indefinite-length array whose
+ * items are flushed as they are encoded, so clients decode it like any array.
+ * <p>
+ * Only used when application/cbor was negotiated explicitly, i.e. on endpoints
+ * that list it in {@code produces}; everywhere else JSON stays the only choice.
+ */
+public class BookCborEncoder extends Jackson2CborEncoder {
+
+    // RFC 8949: start of an indefinite-length array, and the "break" that closes it
+    private static final byte[] START_ARRAY = {(byte) 0x9F};
+    private static final byte[] BREAK = {(byte) 0xFF};
+
+    public BookCborEncoder(ObjectMapper cborMapper) {
+        super(cborMapper, MediaType.APPLICATION_CBOR);
+        setStreamingMediaTypes(List.of(MediaType.APPLICATION_CBOR));
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+
+        // A null MIME type is the "could you write this at all" probe behind producible types
+        return mimeType != null && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+
+        return Flux.concat(
+                Mono.fromSupplier(() -> bufferFactory.wrap(START_ARRAY)),
+                Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)),
+                Mono.fromSupplier(() -> bufferFactory.wrap(BREAK)));
+    }
+}
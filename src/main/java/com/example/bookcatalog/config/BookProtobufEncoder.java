@@ -0,0 +1,297 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.BookMinimalDto;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.dto.response.RawJson;
+import com.example.bookcatalog.repository.BookField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes listings and the export stream as protobuf, following
+ * {@code src/main/proto/books.proto} field by field with {@link CodedOutputStream}
+ * instead of generated message classes, so no intermediate message objects are built.
+ * <p>
+ * A page is one {@code BookPage}; a stream is a sequence of length-prefixed
+ * {@code Book} messages, flushed one by one.
+ */
+public class BookProtobufEncoder implements HttpMessageEncoder<Object> {
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+
+    // Field numbers from books.proto
+    private static final int DECIMAL_UNSCALED = 1;
+    private static final int DECIMAL_SCALE = 2;
+    private static final int BOOK_ID = 1;
+    private static final int BOOK_TITLE = 2;
+    private static final int BOOK_AUTHOR = 3;
+    private static final int BOOK_PRICE = 4;
+    private static final int BOOK_PUBLISH_DATE = 5;
+    private static final int PAGE_BOOKS = 1;
+    private static final int PAGE_TOTAL = 2;
+    private static final int PAGE_HAS_NEXT = 3;
+    private static final int PAGE_NEXT_CURSOR = 4;
+    private static final int PAGE_TOTAL_ESTIMATED = 5;
+    private static final int PAGE_PAGE = 6;
+    private static final int PAGE_SIZE = 7;
+    private static final int PAGE_TOTAL_PAGES = 8;
+
+    // Pages written straight to JSON are read back once to be re-encoded
+    private final ObjectReader rawBooks;
+
+    public BookProtobufEncoder(ObjectMapper objectMapper) {
+        this.rawBooks = objectMapper.readerForListOf(BookFullDto.class);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+
+        Class<?> type = elementType.toClass();
+
+        return (PaginatedBooks.class.isAssignableFrom(type)
+                || BookFullDto.class.isAssignableFrom(type)
+                || BookMinimalDto.class.isAssignableFrom(type))
+                // Explicit only, like BookCborEncoder: never offered where produces does not list it
+                && mimeType != null && APPLICATION_PROTOBUF.isCompatibleWith(mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+
+        return Flux.from(inputStream).map(book -> {
+            Function<BookField, Object> values = valuesOf(book);
+            int size = bookSize(values);
+            return write(bufferFactory, CodedOutputStream.computeUInt32SizeNoTag(size) + size, out -> {
+                out.writeUInt32NoTag(size);
+                writeBook(out, values);
+            });
+        });
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+
+        if (value instanceof PaginatedBooks page) {
+            return encodePage(page, bufferFactory);
+        }
+
+        Function<BookField, Object> values = valuesOf(value);
+        return write(bufferFactory, bookSize(values), out -> writeBook(out, values));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return List.of(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(APPLICATION_PROTOBUF);
+    }
+
+    private DataBuffer encodePage(PaginatedBooks page, DataBufferFactory bufferFactory) {
+
+        List<?> books = page.rawBooks() != null ? readRaw(page.rawBooks()) : page.getBooks();
+
+        // Sizes first: every embedded message is preceded by its length
+        @SuppressWarnings("unchecked")
+        Function<BookField, Object>[] values = new Function[books.size()];
+        int[] sizes = new int[books.size()];
+        int size = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valuesOf(books.get(i));
+            sizes[i] = bookSize(values[i]);
+            size += CodedOutputStream.computeTagSize(PAGE_BOOKS) + CodedOutputStream.computeUInt32SizeNoTag(sizes[i])
+                    + sizes[i];
+        }
+        if (page.getTotal() != null) {
+            size += CodedOutputStream.computeInt64Size(PAGE_TOTAL, page.getTotal());
+        }
+        if (page.isHasNext()) {
+            size += CodedOutputStream.computeBoolSize(PAGE_HAS_NEXT, true);
+        }
+        if (page.getNextCursor() != null) {
+            size += CodedOutputStream.computeStringSize(PAGE_NEXT_CURSOR, page.getNextCursor());
+        }
+        if (page.isTotalEstimated()) {
+            size += CodedOutputStream.computeBoolSize(PAGE_TOTAL_ESTIMATED, true);
+        }
+        if (page.getPage() != null) {
+            size += CodedOutputStream.computeInt32Size(PAGE_PAGE, page.getPage());
+        }
+        size += CodedOutputStream.computeInt32Size(PAGE_SIZE, page.getSize());
+        if (page.getTotalPages() != null) {
+            size += CodedOutputStream.computeInt64Size(PAGE_TOTAL_PAGES, page.getTotalPages());
+        }
+
+        return write(bufferFactory, size, out -> {
+            for (int i = 0; i < values.length; i++) {
+                out.writeTag(PAGE_BOOKS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                out.writeUInt32NoTag(sizes[i]);
+                writeBook(out, values[i]);
+            }
+            if (page.getTotal() != null) {
+                out.writeInt64(PAGE_TOTAL, page.getTotal());
+            }
+            if (page.isHasNext()) {
+                out.writeBool(PAGE_HAS_NEXT, true);
+            }
+            if (page.getNextCursor() != null) {
+                out.writeString(PAGE_NEXT_CURSOR, page.getNextCursor());
+            }
+            if (page.isTotalEstimated()) {
+                out.writeBool(PAGE_TOTAL_ESTIMATED, true);
+            }
+            if (page.getPage() != null) {
+                out.writeInt32(PAGE_PAGE, page.getPage());
+            }
+            out.writeInt32(PAGE_SIZE, page.getSize());
+            if (page.getTotalPages() != null) {
+                out.writeInt64(PAGE_TOTAL_PAGES, page.getTotalPages());
+            }
+        });
+    }
+
+    private List<BookFullDto> readRaw(RawJson books) {
+        try {
+            return books.read(rawBooks);
+        } catch (IOException e) {
+            throw new EncodingException("Could not read the pre-rendered page", e);
+        }
+    }
+
+    private static int bookSize(Function<BookField, Object> book) {
+
+        int size = 0;
+
+        if (book.apply(BookField.ID) instanceof Long id) {
+            size += CodedOutputStream.computeInt64Size(BOOK_ID, id);
+        }
+        if (book.apply(BookField.TITLE) instanceof String title) {
+            size += CodedOutputStream.computeStringSize(BOOK_TITLE, title);
+        }
+        if (book.apply(BookField.AUTHOR) instanceof String author) {
+            size += CodedOutputStream.computeStringSize(BOOK_AUTHOR, author);
+        }
+        if (book.apply(BookField.PRICE) instanceof BigDecimal price) {
+            int decimal = decimalSize(price);
+            size += CodedOutputStream.computeTagSize(BOOK_PRICE) + CodedOutputStream.computeUInt32SizeNoTag(decimal)
+                    + decimal;
+        }
+        if (book.apply(BookField.PUBLISH_DATE) instanceof LocalDate date) {
+            size += CodedOutputStream.computeInt32Size(BOOK_PUBLISH_DATE, (int) date.toEpochDay());
+        }
+
+        return size;
+    }
+
+    private static void writeBook(CodedOutputStream out, Function<BookField, Object> book) throws IOException {
+
+        if (book.apply(BookField.ID) instanceof Long id) {
+            out.writeInt64(BOOK_ID, id);
+        }
+        if (book.apply(BookField.TITLE) instanceof String title) {
+            out.writeString(BOOK_TITLE, title);
+        }
+        if (book.apply(BookField.AUTHOR) instanceof String author) {
+            out.writeString(BOOK_AUTHOR, author);
+        }
+        if (book.apply(BookField.PRICE) instanceof BigDecimal price) {
+            out.writeTag(BOOK_PRICE, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(decimalSize(price));
+            if (price.signum() != 0) {
+                out.writeInt64(DECIMAL_UNSCALED, price.unscaledValue().longValueExact());
+            }
+            if (price.scale() != 0) {
+                out.writeInt32(DECIMAL_SCALE, price.scale());
+            }
+        }
+        if (book.apply(BookField.PUBLISH_DATE) instanceof LocalDate date) {
+            out.writeInt32(BOOK_PUBLISH_DATE, (int) date.toEpochDay());
+        }
+    }
+
+    // proto3 leaves zero values off the wire
+    private static int decimalSize(BigDecimal price) {
+        return (price.signum() != 0
+                ? CodedOutputStream.computeInt64Size(DECIMAL_UNSCALED, price.unscaledValue().longValueExact())
+                : 0)
+                + (price.scale() != 0 ? CodedOutputStream.computeInt32Size(DECIMAL_SCALE, price.scale()) : 0);
+    }
+
+    // Listing elements come in three shapes: the two DTOs and the fields= map
+    private static Function<BookField, Object> valuesOf(Object book) {
+
+        if (book instanceof BookFullDto full) {
+            return field -> switch (field) {
+                case ID -> full.getId();
+                case TITLE -> full.getTitle();
+                case AUTHOR -> full.getAuthor();
+                case PRICE -> full.getPrice();
+                case PUBLISH_DATE -> full.getPublishDate();
+            };
+        }
+        if (book instanceof BookMinimalDto minimal) {
+            return field -> switch (field) {
+                case ID -> minimal.getId();
+                case TITLE -> minimal.getTitle();
+                case AUTHOR -> minimal.getAuthor();
+                default -> null;
+            };
+        }
+        if (book instanceof Map<?, ?> fields) {
+            return field -> fields.get(field.jsonName());
+        }
+
+        throw new EncodingException("Cannot write " + book.getClass().getName() + " as protobuf");
+    }
+
+    private static DataBuffer write(DataBufferFactory bufferFactory, int size, ProtobufWriter writer) {
+
+        byte[] bytes = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+
+        try {
+            writer.write(out);
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new EncodingException("Could not write protobuf message", e);
+        }
+
+        return bufferFactory.wrap(bytes);
+    }
+
+    @FunctionalInterface
+    private interface ProtobufWriter {
+        void write(CodedOutputStream out) throws IOException;
+    }
+}
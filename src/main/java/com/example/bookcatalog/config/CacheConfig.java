@@ -0,0 +1,40 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.services.BookPageKey;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    // Read-through cache for GET /books/{id}; its meters are tagged cache=booksById
+    @Bean
+    @ConditionalOnProperty(prefix = "bookcatalog.cache.books", name = "enabled", matchIfMissing = true)
+    public AsyncCache<Long, Book> booksById(CacheProperties properties, MeterRegistry meterRegistry) {
+        AsyncCache<Long, Book> cache = Caffeine.newBuilder()
+                .maximumSize(properties.books().maximumSize())
+                .expireAfterWrite(properties.books().expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "booksById");
+    }
+
+    // Result cache for GET /books, keyed by the normalized filters and the write generation
+    @Bean
+    @ConditionalOnProperty(prefix = "bookcatalog.cache.pages", name = "enabled", matchIfMissing = true)
+    public AsyncCache<BookPageKey, PaginatedBooks> bookPages(CacheProperties properties, MeterRegistry meterRegistry) {
+        AsyncCache<BookPageKey, PaginatedBooks> cache = Caffeine.newBuilder()
+                .maximumSize(properties.pages().maximumSize())
+                .expireAfterWrite(properties.pages().expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "bookPages");
+    }
+}
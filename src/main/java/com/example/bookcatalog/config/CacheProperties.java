@@ -0,0 +1,24 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the in-memory caches in front of the database.
+ */
+@ConfigurationProperties(prefix = "bookcatalog.cache")
+public record CacheProperties(@DefaultValue Spec books, @DefaultValue Spec pages) {
+
+    /**
+     * @param enabled          when false, lookups go to the database every time (still coalesced)
+     * @param maximumSize      entries kept before size-based eviction kicks in
+     * @param expireAfterWrite how long an entry may be served after it was loaded
+     */
+    public record Spec(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10000") long maximumSize,
+            @DefaultValue("10m") Duration expireAfterWrite) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookcatalog.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+
+    public CodecConfig(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+        this.objectMapper = objectMapper;
+        // Same spring.jackson.* settings as JSON (ISO dates, modules), CBOR on the wire
+        this.cborMapper = builder.factory(new CBORFactory()).build();
+    }
+
+    // Typed writers are asked before the generic Jackson encoder; CBOR and protobuf are picked by Accept
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new PaginatedBooksEncoder(objectMapper));
+        configurer.customCodecs().register(new BookCborEncoder(cborMapper));
+        configurer.customCodecs().register(new BookProtobufEncoder(objectMapper));
+    }
+}
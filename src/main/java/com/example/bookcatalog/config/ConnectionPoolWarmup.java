@@ -0,0 +1,63 @@
+package com.example.bookcatalog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Opens the pools' initial connections (initial-size / min-idle, primary and
+ * any read replicas) before the
+ * application reports itself ready, so the first requests do not pay for TCP,
+ * TLS and authentication.
+ * <p>
+ * A database that is down or slow at startup only costs a warning: the pool
+ * then fills lazily, as it would without the warm-up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bookcatalog.pool", name = "warmup", matchIfMissing = true)
+public class ConnectionPoolWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolWarmup.class);
+
+    private final ConnectionFactory connectionFactory;
+    private final PoolProperties properties;
+
+    public ConnectionPoolWarmup(ConnectionFactory connectionFactory, PoolProperties properties) {
+        this.connectionFactory = connectionFactory;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        List<ConnectionPool> pools;
+
+        if (connectionFactory instanceof ReadReplicaConnectionFactory routing) {
+            pools = routing.pools();
+        } else if (connectionFactory instanceof ConnectionPool pool) {
+            pools = List.of(pool);
+        } else {
+            return;
+        }
+
+        Flux.fromIterable(pools)
+                .flatMap(ConnectionPool::warmup)
+                .reduce(0, Integer::sum)
+                .timeout(properties.warmupTimeout())
+                .doOnNext(opened -> log.info("Pool R2DBC precalentado: {} conexiones abiertas", opened))
+                .onErrorResume(e -> {
+                    log.warn("No se pudo precalentar el pool R2DBC, se llenará bajo demanda: {}", e.toString());
+                    return Mono.empty();
+                })
+                .block();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bookcatalog.config;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+
+/**
+ * Marks reactive pipelines as replica-safe reads, via the Reactor context.
+ * <p>
+ * Only a pipeline marked {@link #readOnly(Context) read-only} and not
+ * {@link #pinPrimary(Context) pinned} is sent to a replica by
+ * {@link ReadReplicaConnectionFactory}; everything else, writes included, uses
+ * the primary. Without replicas configured the marks have no effect.
+ */
+public class DatabaseRouting {
+
+    private static final String READ_ONLY = DatabaseRouting.class.getName() + ".READ_ONLY";
+    private static final String PRIMARY = DatabaseRouting.class.getName() + ".PRIMARY";
+
+    private final long primaryAfterWriteNanos;
+    private volatile long lastWrite;
+
+    public DatabaseRouting(Duration primaryAfterWrite) {
+        this.primaryAfterWriteNanos = primaryAfterWrite.toNanos();
+        this.lastWrite = System.nanoTime() - primaryAfterWriteNanos - 1;
+    }
+
+    /**
+     * Lets the pipeline read from a replica, unless this instance wrote within
+     * {@code primary-after-write}: what gets loaded then may be cached, and a
+     * lagging replica would cache the pre-write state.
+     */
+    public Context readOnly(Context context) {
+        if (System.nanoTime() - lastWrite <= primaryAfterWriteNanos) {
+            return context;
+        }
+        return context.put(READ_ONLY, true);
+    }
+
+    // Called once a write has committed
+    public void recordWrite() {
+        lastWrite = System.nanoTime();
+    }
+
+    // Read-your-writes: the caller has just written and must not see a lagging replica
+    public static Context pinPrimary(Context context) {
+        return context.put(PRIMARY, true);
+    }
+
+    static boolean useReplica(ContextView context) {
+        return context.getOrDefault(READ_ONLY, false) && !context.getOrDefault(PRIMARY, false);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.resource.ResourceTransformerChain;
+import org.springframework.web.reactive.resource.ResourceTransformerSupport;
+import org.springframework.web.reactive.resource.TransformedResource;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The HTML counterpart of Spring's {@code CssLinkResourceTransformer}: rewrites
+ * relative {@code href} and {@code src} attributes to the URL the resource chain
+ * resolves them to, e.g. {@code app.js} to {@code app-<content hash>.js}.
+ * <p>
+ * Absolute paths, other hosts and fragments are left alone.
+ */
+class HtmlLinkResourceTransformer extends ResourceTransformerSupport {
+
+    private static final Pattern LINK = Pattern.compile("\\b(?:href|src)=\"([^\"]+)\"");
+
+    private static final int BUFFER_SIZE = 4096;
+
+    @Override
+    public Mono<Resource> transform(ServerWebExchange exchange, Resource resource,
+                                    ResourceTransformerChain transformerChain) {
+
+        return transformerChain.transform(exchange, resource).flatMap(html -> {
+
+            String filename = html.getFilename();
+            if (filename == null || !filename.endsWith(".html")) {
+                return Mono.just(html);
+            }
+
+            return DataBufferUtils.join(DataBufferUtils.read(html, DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE))
+                    .map(buffer -> {
+                        String content = buffer.toString(StandardCharsets.UTF_8);
+                        DataBufferUtils.release(buffer);
+                        return content;
+                    })
+                    .flatMap(content -> rewrite(exchange, html, content, transformerChain))
+                    .map(content -> new TransformedResource(html, content.getBytes(StandardCharsets.UTF_8)));
+        });
+    }
+
+    private Mono<String> rewrite(ServerWebExchange exchange, Resource html, String content,
+                                 ResourceTransformerChain chain) {
+
+        List<MatchResult> links = LINK.matcher(content).results().toList();
+
+        return Flux.fromIterable(links)
+                .concatMap(link -> {
+                    String url = link.group(1);
+                    // Unresolvable links (e.g. a missing file) stay as they are
+                    return isRelative(url)
+                            ? resolveUrlPath(url, exchange, html, chain).defaultIfEmpty(url)
+                            : Mono.just(url);
+                })
+                .collectList()
+                .map(urls -> {
+                    StringBuilder result = new StringBuilder(content.length() + 64 * urls.size());
+                    int last = 0;
+                    for (int i = 0; i < links.size(); i++) {
+                        result.append(content, last, links.get(i).start(1)).append(urls.get(i));
+                        last = links.get(i).end(1);
+                    }
+                    return result.append(content, last, content.length()).toString();
+                });
+    }
+
+    private static boolean isRelative(String url) {
+        return !url.startsWith("/") && !url.startsWith("#") && !url.contains(":");
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bookcatalog.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * @param directJson  write listing rows straight from the driver into the JSON body
+ *                    instead of mapping them to DTOs that Jackson then serializes
+ * @param maxPageSize largest {@code size} a listing accepts; larger ones are rejected with 400.
+ *                    One row past the page is fetched to detect a next page, so it must stay
+ *                    below {@code Integer.MAX_VALUE}
+ * @param changeCheckInterval how long the catalog change marker is reused before a cached page is
+ *                    checked against a fresh one; writes made by other instances (or plain SQL)
+ *                    show up in cached listings within this interval instead of the cache TTL
+ */
+@Validated
+@ConfigurationProperties(prefix = "bookcatalog.listing")
+public record ListingProperties(
+        @DefaultValue("true") boolean directJson,
+        @DefaultValue("500") @Min(1) @Max(Integer.MAX_VALUE - 1) int maxPageSize,
+        @DefaultValue("1s") Duration changeCheckInterval) {
+}
@@ -0,0 +1,89 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.dto.response.RawJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON encoder for {@code GET /books} pages.
+ * <p>
+ * A page whose books were written straight from the rows ({@link PaginatedBooks#rawBooks()})
+ * is sent as three buffers: the envelope Jackson writes for it, the books bytes
+ * wrapped as they are, and the closing brace. On Reactor Netty the join is a
+ * composite buffer, so a cached page is never serialized or copied again.
+ * Pages holding DTOs are handed to the regular Jackson encoder.
+ */
+public class PaginatedBooksEncoder implements HttpMessageEncoder<PaginatedBooks> {
+
+    private final Jackson2JsonEncoder jackson;
+    private final ObjectWriter envelope;
+
+    public PaginatedBooksEncoder(ObjectMapper objectMapper) {
+        this.jackson = new Jackson2JsonEncoder(objectMapper);
+        // "books" is the last property, so this ends in "books":}
+        this.envelope = objectMapper.writer().withAttribute(RawJson.DEFERRED, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return PaginatedBooks.class.isAssignableFrom(elementType.toClass())
+                && (mimeType == null || MediaType.APPLICATION_JSON.isCompatibleWith(mimeType));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends PaginatedBooks> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(page -> encodeValue(page, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(PaginatedBooks page, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+
+        RawJson books = page.rawBooks();
+
+        if (books == null) {
+            return jackson.encodeValue(page, bufferFactory, valueType, mimeType, hints);
+        }
+
+        byte[] head;
+        try {
+            head = envelope.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("Could not write the page envelope", e);
+        }
+
+        int close = head.length - 1;
+
+        return bufferFactory.join(List.of(
+                bufferFactory.wrap(ByteBuffer.wrap(head, 0, close)),
+                bufferFactory.wrap(books.asByteBuffer()),
+                bufferFactory.wrap(ByteBuffer.wrap(head, close, 1))));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return List.of(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Application-side settings around the R2DBC pool; the pool itself is sized
+ * with the standard {@code spring.r2dbc.pool.*} properties.
+ *
+ * @param warmup        open the pool's initial connections at startup instead of on the first requests
+ * @param warmupTimeout how long startup waits for the warm-up before carrying on without it
+ * @param retryAfter    {@code Retry-After} sent with the 503 returned when no connection can be acquired
+ */
+@ConfigurationProperties(prefix = "bookcatalog.pool")
+public record PoolProperties(
+        @DefaultValue("true") boolean warmup,
+        @DefaultValue("10s") Duration warmupTimeout,
+        @DefaultValue("1s") Duration retryAfter) {
+}
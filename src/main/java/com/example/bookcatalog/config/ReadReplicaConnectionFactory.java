@@ -0,0 +1,106 @@
+package com.example.bookcatalog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Sends replica-safe reads (see {@link DatabaseRouting}) to one of the replica
+ * pools and everything else to the primary.
+ * <p>
+ * Unwraps to the primary, so the actuator health check and the standard pool
+ * metrics keep describing the primary pool.
+ */
+public class ReadReplicaConnectionFactory extends AbstractRoutingConnectionFactory
+        implements Wrapped<ConnectionFactory>, DisposableBean {
+
+    private static final String PRIMARY = "primary";
+
+    private final ConnectionFactory primary;
+    private final List<ConnectionPool> replicas;
+    private final ReplicaProperties.Strategy strategy;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaConnectionFactory(ConnectionFactory primary, List<ConnectionPool> replicas,
+                                        ReplicaProperties.Strategy strategy) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.strategy = strategy;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context ->
+                Mono.just(DatabaseRouting.useReplica(context) ? nextReplica() : PRIMARY));
+    }
+
+    private Object nextReplica() {
+        return switch (strategy) {
+            case ROUND_ROBIN -> Math.floorMod(next.getAndIncrement(), replicas.size());
+            case LEAST_PENDING -> leastPending();
+        };
+    }
+
+    private int leastPending() {
+        return IntStream.range(0, replicas.size())
+                .boxed()
+                .min(Comparator.<Integer>comparingInt(i -> metric(i, PoolMetrics::pendingAcquireSize))
+                        .thenComparingInt(i -> metric(i, PoolMetrics::acquiredSize)))
+                .orElse(0);
+    }
+
+    private int metric(int replica, ToIntFunction<PoolMetrics> metric) {
+        return replicas.get(replica).getMetrics().map(metric::applyAsInt).orElse(0);
+    }
+
+    // Every pool behind this factory, primary first (for warm-up and metrics)
+    public List<ConnectionPool> pools() {
+        List<ConnectionPool> pools = new ArrayList<>();
+        if (primary instanceof ConnectionPool pool) {
+            pools.add(pool);
+        }
+        pools.addAll(replicas);
+        return pools;
+    }
+
+    public List<ConnectionPool> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return primary;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(ConnectionPool::dispose);
+        if (primary instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Keeps a client that has just written on the primary for
+ * {@code bookcatalog.replicas.primary-after-write}, so it reads its own writes
+ * even while the replicas lag.
+ * <p>
+ * A successful write sets a short-lived cookie; requests carrying it are
+ * {@link DatabaseRouting#pinPrimary pinned}. Clients without a cookie jar can
+ * send {@code Cookie: bookcatalog-primary=1} themselves.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bookcatalog.replicas", name = "urls")
+public class ReadYourWritesFilter implements WebFilter {
+
+    static final String COOKIE = "bookcatalog-primary";
+
+    private static final Set<HttpMethod> READS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private final ResponseCookie pin;
+
+    public ReadYourWritesFilter(ReplicaProperties properties) {
+        this.pin = ResponseCookie.from(COOKIE, "1")
+                .maxAge(properties.primaryAfterWrite())
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+
+        if (!READS.contains(exchange.getRequest().getMethod())) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (status != null && status.is2xxSuccessful()) {
+                    response.addCookie(pin);
+                }
+                return Mono.empty();
+            });
+        }
+
+        if (exchange.getRequest().getCookies().containsKey(COOKIE)) {
+            return chain.filter(exchange).contextWrite(DatabaseRouting::pinPrimary);
+        }
+
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param urls              R2DBC URLs of the read replicas; empty keeps every query on {@code spring.r2dbc.url}
+ * @param username          replica login, defaults to {@code spring.r2dbc.username}
+ * @param password          replica password, defaults to {@code spring.r2dbc.password}
+ * @param strategy          how a read picks its replica
+ * @param primaryAfterWrite how long reads stay on the primary after a write, both for the client that
+ *                          wrote (cookie) and for this instance's caches
+ */
+@ConfigurationProperties(prefix = "bookcatalog.replicas")
+public record ReplicaProperties(
+        @DefaultValue List<String> urls,
+        String username,
+        String password,
+        @DefaultValue("round-robin") Strategy strategy,
+        @DefaultValue("5s") Duration primaryAfterWrite) {
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        // Fewest waiting acquisitions, then fewest connections in use
+        LEAST_PENDING
+    }
+
+    public boolean enabled() {
+        return urls.stream().anyMatch(url -> !url.isBlank());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bookcatalog.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public DatabaseRouting databaseRouting(ReplicaProperties properties) {
+        // Without replicas there is no lag to guard against
+        return new DatabaseRouting(properties.enabled() ? properties.primaryAfterWrite() : Duration.ZERO);
+    }
+
+    // Wraps the auto-configured pool instead of replacing it, so spring.r2dbc.* keeps configuring the primary
+    @Bean
+    @ConditionalOnProperty(prefix = "bookcatalog.replicas", name = "urls")
+    static BeanPostProcessor readReplicaRouting(ObjectProvider<ReplicaProperties> replicaProperties,
+                                                ObjectProvider<R2dbcProperties> r2dbcProperties,
+                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+                ReplicaProperties replicas = replicaProperties.getObject();
+
+                if (!(bean instanceof ConnectionFactory primary)
+                        || bean instanceof ReadReplicaConnectionFactory
+                        || !replicas.enabled()) {
+                    return bean;
+                }
+
+                R2dbcProperties r2dbc = r2dbcProperties.getObject();
+                List<ConnectionPool> pools = new ArrayList<>();
+
+                for (String url : replicas.urls()) {
+                    if (!url.isBlank()) {
+                        pools.add(replicaPool(url, replicas, r2dbc, "replica-" + pools.size()));
+                    }
+                }
+
+                // The primary's r2dbc.pool.* gauges come from Boot (tag name=connectionFactory)
+                meterRegistry.ifAvailable(registry -> {
+                    for (int i = 0; i < pools.size(); i++) {
+                        new ConnectionPoolMetrics(pools.get(i), "replica-" + i, Tags.empty()).bindTo(registry);
+                    }
+                });
+
+                return new ReadReplicaConnectionFactory(primary, pools, replicas.strategy());
+            }
+        };
+    }
+
+    // Same pool settings as the primary (spring.r2dbc.pool.*), only the URL and credentials differ
+    private static ConnectionPool replicaPool(String url, ReplicaProperties replicas, R2dbcProperties r2dbc,
+                                              String name) {
+
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+
+        map.from(replicas.username() != null ? replicas.username() : r2dbc.getUsername())
+                .to(user -> options.option(ConnectionFactoryOptions.USER, user));
+        map.from(replicas.password() != null ? replicas.password() : r2dbc.getPassword())
+                .to(password -> options.option(ConnectionFactoryOptions.PASSWORD, password));
+        r2dbc.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+
+        R2dbcProperties.Pool pool = r2dbc.getPool();
+        ConnectionPoolConfiguration.Builder builder =
+                ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                        .name(name);
+
+        map.from(pool.getInitialSize()).to(builder::initialSize);
+        map.from(pool.getMinIdle()).to(builder::minIdle);
+        map.from(pool.getMaxSize()).to(builder::maxSize);
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getMaxValidationTime()).to(builder::maxValidationTime);
+        map.from(pool.getValidationQuery()).to(builder::validationQuery);
+        map.from(pool.getValidationDepth()).to(builder::validationDepth);
+        map.from(pool.getAcquireRetry()).to(builder::acquireRetry);
+
+        return new ConnectionPool(builder.build());
+    }
+}
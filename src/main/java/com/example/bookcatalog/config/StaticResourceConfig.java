@@ -0,0 +1,44 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.resource.VersionResourceResolver;
+import org.springframework.web.server.WebFilter;
+
+/**
+ * The demo UI in {@code static/}. Its assets are served by Spring Boot's
+ * resource chain (see {@code spring.web.resources.*}): content-hashed URLs,
+ * precompressed {@code .gz} variants and a one-year {@code Cache-Control}.
+ * <p>
+ * {@code index.html} is the exception: it is never cached, and its links are
+ * rewritten to the current hashed URLs, so a deploy reaches browsers on the
+ * next page load.
+ */
+@Configuration
+public class StaticResourceConfig implements WebFluxConfigurer {
+
+    static final String INDEX = "/index.html";
+
+    // Wins over Boot's /** mapping as the more specific pattern
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(INDEX)
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                // Same strategy as spring.web.resources.chain.strategy.content, so links match what /** serves
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"))
+                .addTransformer(new HtmlLinkResourceTransformer());
+    }
+
+    // Boot's welcome page would serve index.html as it is on disk, with unversioned links
+    @Bean
+    WebFilter welcomePageFilter() {
+        return (exchange, chain) -> "/".equals(exchange.getRequest().getPath().pathWithinApplication().value())
+                ? chain.filter(exchange.mutate().request(request -> request.path(INDEX)).build())
+                : chain.filter(exchange);
+    }
+}
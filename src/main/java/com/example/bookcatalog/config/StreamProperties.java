@@ -0,0 +1,11 @@
+package com.example.bookcatalog.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param fetchSize rows pulled from the database cursor per round-trip while streaming
+ */
+@ConfigurationProperties(prefix = "bookcatalog.stream")
+public record StreamProperties(@DefaultValue("500") int fetchSize) {
+}
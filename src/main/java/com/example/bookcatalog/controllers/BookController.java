@@ -1,13 +1,20 @@
 package com.example.bookcatalog.controllers;
 
+import com.example.bookcatalog.config.BookProtobufEncoder;
+import com.example.bookcatalog.dto.BookBatchDeleteDto;
 import com.example.bookcatalog.dto.BookDto;
 import com.example.bookcatalog.dto.BookFullDto;
 import com.example.bookcatalog.dto.BookMinimalDto;
+import com.example.bookcatalog.dto.BookPatchDto;
+import com.example.bookcatalog.dto.response.BatchItemResult;
+import com.example.bookcatalog.dto.response.BatchWriteResult;
 import com.example.bookcatalog.exception.ErrorResponse;
 import com.example.bookcatalog.dto.response.PaginatedBooks;
 import com.example.bookcatalog.mapper.BookMapper;
+import com.example.bookcatalog.model.CatalogChange;
 import com.example.bookcatalog.services.BookService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,13 +23,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.List;
 
+import static com.example.bookcatalog.exception.ErrorLogging.logFailure;
+
 @RestController
 @RequestMapping("/books")
 @Tag(name = "Books", description = "Operations related to books")
@@ -30,9 +45,11 @@ public class BookController {
 
     private static final Logger log = LoggerFactory.getLogger(BookController.class);
     private final BookService service;
+    private final ResponseMediaTypes mediaTypes;
 
-    public BookController(BookService service) {
+    public BookController(BookService service, RequestedContentTypeResolver contentTypeResolver) {
         this.service = service;
+        this.mediaTypes = new ResponseMediaTypes(contentTypeResolver);
     }
 
     // =========================
@@ -77,14 +94,43 @@ public class BookController {
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<BookDto> createBook(@Valid @RequestBody BookDto book) {
 
-        log.info("POST /books - request: {}", book);
+        log.debug("POST /books - request: {}", book);
 
         return service.create(book)
                 .doOnSuccess(saved ->
-                        log.info("POST /books - created id={}", saved.getId())
+                        log.debug("POST /books - created id={}", saved.getId())
                 )
                 .doOnError(error ->
-                        log.error("POST /books - error creating book", error)
+                        logFailure(log, error, "POST /books - error creating book")
+                );
+    }
+
+    // =========================
+    // BULK CREATE
+    // =========================
+    @Operation(summary = "Create many books",
+            description = "Accepts a JSON array or an NDJSON stream of books. Rows are validated and inserted "
+                    + "in chunks; the response reports the outcome of every element in request order")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Per-item results",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BatchItemResult.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<BatchItemResult> createBooks(@RequestBody Flux<BookDto> books) {
+
+        log.debug("POST /books/batch");
+
+        return service.createAll(books)
+                .doOnError(error ->
+                        logFailure(log, error, "POST /books/batch - error creating books")
                 );
     }
 
@@ -100,6 +146,10 @@ public class BookController {
                             mediaType = "application/json"
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "If-None-Match matches the current ETag"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Book not found",
@@ -110,32 +160,61 @@ public class BookController {
             )
     })
     @GetMapping("/{id}")
-    public Mono<?> getBookById(
+    public Mono<ResponseEntity<Object>> getBookById(
             @PathVariable Long id,
             @RequestParam(defaultValue = "full") String dto) {
 
-        log.info("GET /books/{} dto={}", id, dto);
+        log.debug("GET /books/{} dto={}", id, dto);
 
+        // The result handler answers If-None-Match with 304 and skips the body when the ETag matches
         return service.getById(id, dto)
+                .map(book -> ResponseEntity.ok()
+                        .eTag(BookETags.of(book.version(), dto))
+                        .lastModified(book.lastModified())
+                        .body(book.body()))
                 .doOnSuccess(book ->
-                        log.info("GET /books/{} - found", id)
+                        log.debug("GET /books/{} - found", id)
                 )
                 .doOnError(error ->
-                        log.error("GET /books/{} - error", id, error)
+                        logFailure(log, error, "GET /books/{} - error", id)
                 );
     }
     // =========================
 // GET ALL (PAGINATED)
 // =========================
-    @Operation(summary = "Get all books (paginated)")
+    @Operation(summary = "Get all books (paginated)",
+            description = "Use page/size for offset paging, or pass the returned nextCursor as cursor "
+                    + "for keyset paging whose cost does not grow with depth. "
+                    + "total=exact|estimate|none trades the accuracy of the total for fewer database round-trips. "
+                    + "q runs a ranked full-text search over title and author. "
+                    + "fields=title,price returns only those fields (plus id) and overrides dto. "
+                    + "The Link header points to the next and previous pages when they exist")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Books retrieved successfully",
-                    content = @Content(
-                            mediaType = "application/json",
-                            schema = @Schema(implementation = PaginatedBooks.class)
-                    )
+                    headers = @Header(
+                            name = HttpHeaders.LINK,
+                            description = "rel=\"next\" and rel=\"prev\" page URLs, relative to the request"
+                    ),
+                    content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = PaginatedBooks.class)
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                    schema = @Schema(implementation = PaginatedBooks.class)
+                            ),
+                            @Content(
+                                    mediaType = BookProtobufEncoder.APPLICATION_PROTOBUF_VALUE,
+                                    schema = @Schema(description = "bookcatalog.v1.BookPage, see src/main/proto/books.proto")
+                            )
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Catalog unchanged since If-None-Match / If-Modified-Since"
             ),
             @ApiResponse(
                     responseCode = "400",
@@ -146,22 +225,124 @@ public class BookController {
                     )
             )
     })
-    @GetMapping
-    public Mono<PaginatedBooks> getAll(
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BookProtobufEncoder.APPLICATION_PROTOBUF_VALUE})
+    public Mono<ResponseEntity<PaginatedBooks>> getAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) LocalDate publishDateFrom,
             @RequestParam(required = false) LocalDate publishDateTo,
-            @RequestParam(defaultValue = "full") String dto) {
+            @RequestParam(defaultValue = "full") String dto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String total,
+            @RequestParam(required = false) String fields,
+            ServerWebExchange exchange) {
+
+        // Guarded: the varargs array and boxing would otherwise be paid on every request
+        if (log.isDebugEnabled()) {
+            log.debug("GET /books - page={}, size={}, q={}, title={}, author={}, publishDateFrom={}, publishDateTo={}, dto={}, cursor={}, total={}, fields={}",
+                    page, size, q, title, author, publishDateFrom, publishDateTo, dto, cursor, total, fields);
+        }
 
-        log.info("GET /books - page={}, size={}, title={}, author={}, publishDateFrom={}, publishDateTo={}, dto={}",
-                page, size, title, author, publishDateFrom, publishDateTo, dto);
+        Mono<PaginatedBooks> listing = Mono.defer(() -> service.getAll(page, size, q, title, author, publishDateFrom,
+                publishDateTo, dto, cursor, total, fields));
 
-        return service.getAll(page, size, title, author, publishDateFrom, publishDateTo, dto)
+        // Picked once and written as the Content-Type, so the tag always names the body's format
+        MediaType format = mediaTypes.select(exchange);
+
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        boolean conditional = !requestHeaders.getIfNoneMatch().isEmpty()
+                || requestHeaders.getIfModifiedSince() != -1;
+
+        // Only a conditional request pays for a fresh marker, and a 304 never runs the page query;
+        // otherwise the validators come from the marker cached with the page
+        Mono<PaginatedBooks> books = !conditional ? listing : service.lastChange()
+                .flatMap(change -> {
+                    if (!exchange.checkNotModified(BookETags.ofCatalog(change, format, dto, fields),
+                            change.changedAt())) {
+                        return listing;
+                    }
+                    // A cache keying the 304 on the URL alone would hand it to clients of another format
+                    exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT));
+                    return Mono.<PaginatedBooks>empty();
+                });
+
+        return books
+                .map(body -> {
+                    String links = BookPageLinks.of(exchange.getRequest().getURI(), body);
+                    CatalogChange change = body.change();
+                    return ResponseEntity.ok()
+                            .contentType(format)
+                            // Same URL, one representation per format
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .headers(headers -> {
+                                if (change != null) {
+                                    headers.setETag(BookETags.ofCatalog(change, format, dto, fields));
+                                    headers.setLastModified(change.changedAt());
+                                }
+                                if (links != null) {
+                                    headers.set(HttpHeaders.LINK, links);
+                                }
+                            })
+                            .body(body);
+                })
+                .doOnError(error ->
+                        logFailure(log, error, "GET /books - error retrieving books")
+                );
+    }
+
+    // =========================
+    // STREAM (NDJSON / SSE)
+    // =========================
+    @Operation(summary = "Stream all matching books",
+            description = "Streams the whole (filtered) catalog as NDJSON or server-sent events. Rows are read "
+                    + "from a database cursor as the client consumes them, so memory use does not depend "
+                    + "on the catalog size")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Books streamed successfully",
+                    content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = BookFullDto.class)
+                            ),
+                            @Content(
+                                    mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                    schema = @Schema(implementation = BookFullDto.class)
+                            ),
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                    schema = @Schema(description = "One indefinite-length CBOR array of books")
+                            ),
+                            @Content(
+                                    mediaType = BookProtobufEncoder.APPLICATION_PROTOBUF_VALUE,
+                                    schema = @Schema(description = "Length-prefixed bookcatalog.v1.Book messages")
+                            )
+                    }
+            )
+    })
+    @GetMapping(value = "/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    MediaType.APPLICATION_CBOR_VALUE, BookProtobufEncoder.APPLICATION_PROTOBUF_VALUE})
+    public Flux<BookFullDto> streamBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) LocalDate publishDateFrom,
+            @RequestParam(required = false) LocalDate publishDateTo) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("GET /books/stream - q={}, title={}, author={}, publishDateFrom={}, publishDateTo={}",
+                    q, title, author, publishDateFrom, publishDateTo);
+        }
+
+        return service.stream(q, title, author, publishDateFrom, publishDateTo)
                 .doOnError(error ->
-                        log.error("GET /books - error retrieving books", error)
+                        logFailure(log, error, "GET /books/stream - error streaming books")
                 );
     }
 
@@ -194,6 +375,14 @@ public class BookController {
                             schema = @Schema(implementation = ErrorResponse.class)
                     )
             ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current ETag",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Unexpected server error",
@@ -204,17 +393,22 @@ public class BookController {
             )
     })
     @PutMapping("/{id}")
-    public Mono<BookDto> updateBook(@PathVariable Long id,
-                                    @Valid @RequestBody BookDto updatedBook) {
+    public Mono<ResponseEntity<BookDto>> updateBook(@PathVariable Long id,
+                                                    @Valid @RequestBody BookDto updatedBook,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                    String ifMatch) {
 
-        log.info("PUT /books/{} - request: {}", id, updatedBook);
+        log.debug("PUT /books/{} - request: {}", id, updatedBook);
 
-        return service.update(id, updatedBook)
+        return service.update(id, updatedBook, BookETags.expectedVersion(ifMatch, id))
+                .map(updated -> ResponseEntity.ok()
+                        .eTag(BookETags.of(updated.version(), "full"))
+                        .body(updated.body()))
                 .doOnSuccess(updated ->
-                        log.info("PUT /books/{} - updated successfully", id)
+                        log.debug("PUT /books/{} - updated successfully", id)
                 )
                 .doOnError(error ->
-                        log.error("PUT /books/{} - error updating book", id, error)
+                        logFailure(log, error, "PUT /books/{} - error updating book", id)
                 );
     }
 
@@ -234,20 +428,102 @@ public class BookController {
                             mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class)
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current ETag",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
             )
     })
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public Mono<Void> deleteBook(@PathVariable Long id) {
+    public Mono<Void> deleteBook(@PathVariable Long id,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        log.info("DELETE /books/{}", id);
+        log.debug("DELETE /books/{}", id);
 
-        return service.delete(id)
+        return service.delete(id, BookETags.expectedVersion(ifMatch, id))
                 .doOnSuccess(v ->
-                        log.info("DELETE /books/{} - deleted successfully", id)
+                        log.debug("DELETE /books/{} - deleted successfully", id)
                 )
                 .doOnError(error ->
-                        log.error("DELETE /books/{} - error deleting book", id, error)
+                        logFailure(log, error, "DELETE /books/{} - error deleting book", id)
+                );
+    }
+
+
+    // =========================
+    // BULK UPDATE
+    // =========================
+    @Operation(summary = "Partially update many books",
+            description = "Accepts a JSON array or an NDJSON stream of patches keyed by id. Fields left null keep "
+                    + "their value. The body is streamed and applied chunk by chunk with set-based updates, one transaction "
+                    + "per chunk")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Updated and missing ids",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BatchWriteResult.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid or duplicated patch; its chunk and the rest of the body were not written",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @PatchMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<BatchWriteResult> updateBooks(@RequestBody Flux<BookPatchDto> patches) {
+
+        log.debug("PATCH /books/batch");
+
+        return service.updateAll(patches)
+                .doOnError(error ->
+                        logFailure(log, error, "PATCH /books/batch - error updating books")
+                );
+    }
+
+    // =========================
+    // BULK DELETE
+    // =========================
+    @Operation(summary = "Delete many books",
+            description = "Deletes either an explicit list of ids or every book matching the given filters "
+                    + "(q, title, author, publishDateFrom, publishDateTo), in chunked transactions")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Deleted count, plus missing ids when deleting by id",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BatchWriteResult.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Neither or both of ids and filters were given",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @DeleteMapping("/batch")
+    public Mono<BatchWriteResult> deleteBooks(@RequestBody BookBatchDeleteDto request) {
+
+        log.debug("DELETE /books/batch");
+
+        return service.deleteAll(request)
+                .doOnError(error ->
+                        logFailure(log, error, "DELETE /books/batch - error deleting books")
                 );
     }
 
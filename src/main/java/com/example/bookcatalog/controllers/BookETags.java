@@ -0,0 +1,73 @@
+package com.example.bookcatalog.controllers;
+
+import com.example.bookcatalog.exception.PreconditionFailedException;
+import com.example.bookcatalog.model.CatalogChange;
+import com.example.bookcatalog.repository.BookField;
+import org.springframework.http.MediaType;
+
+import java.util.stream.Collectors;
+
+/**
+ * Maps a book's row version to and from strong entity tags.
+ * <p>
+ * The full representation is tagged {@code "<version>"}; the minimal one gets a
+ * suffix so the two never share a strong validator. Listings are tagged with the
+ * catalog change marker, which moves on every committed write to any book, plus
+ * the representation: each format and dto/fields shape is a different body.
+ */
+final class BookETags {
+
+    private static final String MINIMAL_SUFFIX = "-minimal";
+
+    private BookETags() {
+    }
+
+    static String of(long version, String dto) {
+        return "\"" + version + ("minimal".equalsIgnoreCase(dto) ? MINIMAL_SUFFIX : "") + "\"";
+    }
+
+    static String ofCatalog(CatalogChange change, MediaType format, String dto, String fields) {
+        return "\"c" + change.seq() + "." + change.recent()
+                + "-" + format.getSubtype()
+                + "-" + shape(dto, fields) + "\"";
+    }
+
+    // Same precedence as the service: fields overrides dto
+    private static String shape(String dto, String fields) {
+
+        if (fields != null && !fields.isBlank()) {
+            return BookField.parse(fields).stream().map(BookField::jsonName).collect(Collectors.joining(","));
+        }
+
+        return "minimal".equalsIgnoreCase(dto) ? "minimal" : "full";
+    }
+
+    /**
+     * Returns the version an {@code If-Match} header asks for, or {@code null} when
+     * the write is unconditional (no header, or {@code *}).
+     */
+    static Long expectedVersion(String ifMatch, Long id) {
+
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+
+        // If-Match uses strong comparison, so a weak tag can never match
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException(id);
+        }
+
+        String value = tag.substring(1, tag.length() - 1);
+        if (value.endsWith(MINIMAL_SUFFIX)) {
+            value = value.substring(0, value.length() - MINIMAL_SUFFIX.length());
+        }
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException(id);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bookcatalog.controllers;
+
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the {@code Link} header (RFC 8288) of a listing from the request URL,
+ * so clients follow {@code next} instead of guessing whether another page exists.
+ * <p>
+ * {@code next} carries the keyset cursor when the page has one and the next page
+ * number otherwise (search results); {@code prev} only exists for numbered pages,
+ * since a cursor only seeks forward. Links are relative to the request.
+ */
+final class BookPageLinks {
+
+    private BookPageLinks() {
+    }
+
+    /**
+     * Returns the header value, or {@code null} for a page with neither neighbour.
+     */
+    static String of(URI request, PaginatedBooks page) {
+
+        UriComponentsBuilder self = UriComponentsBuilder.fromPath(request.getRawPath()).query(request.getRawQuery());
+        List<String> links = new ArrayList<>(2);
+
+        if (page.isHasNext() && page.getNextCursor() != null) {
+            links.add(link(self.cloneBuilder().replaceQueryParam("page").replaceQueryParam("cursor", page.getNextCursor()), "next"));
+        } else if (page.isHasNext() && page.getPage() != null) {
+            links.add(link(self.cloneBuilder().replaceQueryParam("page", page.getPage() + 1), "next"));
+        }
+
+        if (page.getPage() != null && page.getPage() > 0) {
+            links.add(link(self.cloneBuilder().replaceQueryParam("cursor").replaceQueryParam("page", page.getPage() - 1), "prev"));
+        }
+
+        return links.isEmpty() ? null : String.join(", ", links);
+    }
+
+    // The request query is already encoded, and cursors are URL-safe Base64
+    private static String link(UriComponentsBuilder target, String rel) {
+        return "<" + target.build(true).toUriString() + ">; rel=\"" + rel + "\"";
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bookcatalog.controllers;
+
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.reactive.result.HandlerResultHandlerSupport;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.List;
+
+/**
+ * Content negotiation done up front, by the same code WebFlux's result handlers
+ * run, so a handler knows its representation before the body exists: a 304 has
+ * to carry the entity tag of a body it never writes.
+ */
+final class ResponseMediaTypes extends HandlerResultHandlerSupport {
+
+    ResponseMediaTypes(RequestedContentTypeResolver contentTypeResolver) {
+        super(contentTypeResolver, ReactiveAdapterRegistry.getSharedInstance());
+    }
+
+    /**
+     * The type the response will be written as, among the handler's {@code produces};
+     * JSON when the mapping declares none.
+     */
+    MediaType select(ServerWebExchange exchange) {
+        MediaType selected = selectMediaType(exchange, () -> List.of(MediaType.APPLICATION_JSON));
+        return selected != null ? selected : MediaType.APPLICATION_JSON;
+    }
+}
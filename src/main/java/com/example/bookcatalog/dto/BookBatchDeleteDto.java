@@ -0,0 +1,37 @@
+package com.example.bookcatalog.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Selects the books removed by {@code DELETE /books/batch}: either an explicit
+ * id list or at least one filter, never both.
+ */
+public class BookBatchDeleteDto {
+
+    private List<Long> ids;
+    private String q;
+    private String title;
+    private String author;
+    private LocalDate publishDateFrom;
+    private LocalDate publishDateTo;
+
+    public BookBatchDeleteDto() {}
+
+    public BookBatchDeleteDto(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+    public LocalDate getPublishDateFrom() { return publishDateFrom; }
+    public void setPublishDateFrom(LocalDate publishDateFrom) { this.publishDateFrom = publishDateFrom; }
+    public LocalDate getPublishDateTo() { return publishDateTo; }
+    public void setPublishDateTo(LocalDate publishDateTo) { this.publishDateTo = publishDateTo; }
+}
@@ -0,0 +1,50 @@
+package com.example.bookcatalog.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Partial update of one book; fields left {@code null} keep their current value.
+ */
+public class BookPatchDto {
+
+    @NotNull(message = "Id cannot be null")
+    private Long id;
+
+    @Pattern(regexp = ".*\\S.*", message = "Title must not be blank")
+    private String title;
+
+    @Pattern(regexp = ".*\\S.*", message = "Author must not be blank")
+    private String author;
+
+    @Positive(message = "Price must be positive")
+    private BigDecimal price;
+
+    private LocalDate publishDate;
+
+    public BookPatchDto() {}
+
+    public BookPatchDto(Long id, String title, String author, BigDecimal price, LocalDate publishDate) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.price = price;
+        this.publishDate = publishDate;
+    }
+
+    // Getters y setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+    public LocalDate getPublishDate(){return publishDate;}
+    public void setPublishDate(LocalDate publishDate){this.publishDate = publishDate;}
+}
@@ -0,0 +1,36 @@
+package com.example.bookcatalog.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of one element of a batch request.
+ *
+ * @param index  position of the element in the request (0-based)
+ * @param id     id of the created book, when {@code status} is {@code CREATED}
+ * @param status {@code CREATED}, {@code INVALID} or {@code FAILED}
+ * @param errors validation or database messages for unsuccessful elements
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record BatchItemResult(
+        long index,
+        Long id,
+        Status status,
+        List<String> errors
+) {
+
+    public enum Status { CREATED, INVALID, FAILED }
+
+    public static BatchItemResult created(long index, Long id) {
+        return new BatchItemResult(index, id, Status.CREATED, List.of());
+    }
+
+    public static BatchItemResult invalid(long index, List<String> errors) {
+        return new BatchItemResult(index, null, Status.INVALID, errors);
+    }
+
+    public static BatchItemResult failed(long index, String error) {
+        return new BatchItemResult(index, null, Status.FAILED, List.of(error));
+    }
+}
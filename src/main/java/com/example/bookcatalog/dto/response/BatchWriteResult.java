@@ -0,0 +1,36 @@
+package com.example.bookcatalog.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of a bulk update or delete.
+ *
+ * @param affected   rows changed or removed
+ * @param missing    requested ids that did not exist (absent for filter deletes)
+ * @param missingIds the ids behind {@code missing}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchWriteResult(
+        long affected,
+        Long missing,
+        List<Long> missingIds
+) {
+
+    public static BatchWriteResult ofIds(long affected, List<Long> missingIds) {
+        return new BatchWriteResult(affected, (long) missingIds.size(), missingIds);
+    }
+
+    public static BatchWriteResult ofFilter(long affected) {
+        return new BatchWriteResult(affected, null, null);
+    }
+
+    // Sums two chunks of an id-based write
+    public BatchWriteResult plus(BatchWriteResult other) {
+        List<Long> ids = new ArrayList<>(missingIds);
+        ids.addAll(other.missingIds);
+        return ofIds(affected + other.affected, ids);
+    }
+}
@@ -1,10 +0,0 @@
-package com.example.bookcatalog.dto.response;
-
-import java.util.List;
-
-public record PageResponse<T>(
-        List<T> content,
-        long totalElements,
-        int page,
-        int size
-) {}
\ No newline at end of file
@@ -1,30 +1,144 @@
 package com.example.bookcatalog.dto.response;
 
-import com.example.bookcatalog.dto.BookDto;
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.BookMinimalDto;
+import com.example.bookcatalog.model.CatalogChange;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
 import java.util.List;
 
+// books last: PaginatedBooksEncoder appends a pre-rendered books array right before the closing brace
+@JsonPropertyOrder({"total", "totalPages", "page", "size", "nextCursor", "hasNext", "totalEstimated", "books"})
 public class PaginatedBooks {
 
-    private final PageResponse<?> pageResponse;
+    private final List<?> books;
+    private final int size;
+    private final Long total;
+    // Null on a keyset (cursor) page, which has no page number
+    private final Integer page;
+    private final String nextCursor;
+    private final boolean hasNext;
+    private final boolean totalEstimated;
+    // Set instead of the book list when the rows were written straight to JSON
+    private final RawJson booksJson;
+    // Catalog change marker read right before the page, see at()
+    private final CatalogChange change;
+
+    /**
+     * @param page the requested page number, or {@code null} for a page fetched with a cursor
+     * @param size the requested page size; the last page may hold fewer books
+     */
+    public PaginatedBooks(Long total, List<?> books, Integer page, int size, String nextCursor, boolean hasNext,
+                          boolean totalEstimated) {
+        this.books = books;
+        this.size = size;
+        this.total = total;
+        this.page = page;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.totalEstimated = totalEstimated;
+        this.booksJson = null;
+        this.change = null;
+    }
+
+    /**
+     * A page whose books are already a JSON array (see {@code BookJsonRows}); it is
+     * copied into the response as-is instead of serializing one DTO per book.
+     */
+    public PaginatedBooks(Long total, RawJson booksJson, Integer page, int size, String nextCursor, boolean hasNext,
+                          boolean totalEstimated) {
+        this.books = List.of();
+        this.size = size;
+        this.total = total;
+        this.page = page;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.totalEstimated = totalEstimated;
+        this.booksJson = booksJson;
+        this.change = null;
+    }
+
+    private PaginatedBooks(PaginatedBooks page, CatalogChange change) {
+        this.books = page.books;
+        this.size = page.size;
+        this.total = page.total;
+        this.page = page.page;
+        this.nextCursor = page.nextCursor;
+        this.hasNext = page.hasNext;
+        this.totalEstimated = page.totalEstimated;
+        this.booksJson = page.booksJson;
+        this.change = change;
+    }
 
-    public PaginatedBooks(Long total, List<?> books) {
-        this.pageResponse = new PageResponse<>(
-                books,
-                total,
-                0,      // default page (since old class didn’t support it)
-                books.size()
-        );
+    /**
+     * The same page, stamped with the catalog state it was read at. The marker is
+     * cached along with the page, so the response's validators never need another query.
+     */
+    public PaginatedBooks at(CatalogChange change) {
+        return new PaginatedBooks(this, change);
     }
 
+    // Absent when the caller asked for total=none
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public Long getTotal() {
-        return pageResponse.totalElements();
+        return total;
+    }
+
+    // Absent on a cursor page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer getPage() {
+        return page;
     }
 
+    public int getSize() {
+        return size;
+    }
+
+    // Absent when there is no total; pages are numbered 0 .. totalPages - 1
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getTotalPages() {
+        return total != null && size > 0 ? (total + size - 1) / size : null;
+    }
+
+    // Only serialized when total is a planner estimate (total=estimate)
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public boolean isTotalEstimated() {
+        return totalEstimated;
+    }
+
+    // Empty for a page written straight to JSON; its books only exist in the serialized form
+    @JsonIgnore
     public List<?> getBooks() {
-        return pageResponse.content();
+        return books;
+    }
+
+    @JsonProperty("books")
+    @ArraySchema(schema = @Schema(oneOf = {BookMinimalDto.class, BookFullDto.class}))
+    public Object getBooksBody() {
+        return booksJson != null ? booksJson : books;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    // Opaque keyset token for the following page; absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    // The pre-rendered books array, or null when the page holds DTOs
+    public RawJson rawBooks() {
+        return booksJson;
     }
 
-    public PageResponse<?> toPageResponse() {
-        return pageResponse;
+    public CatalogChange change() {
+        return change;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.example.bookcatalog.dto.response;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A JSON value that is already encoded as UTF-8, such as a page of books
+ * written straight from database rows. The bytes are never modified, so one
+ * instance can be shared by every response that serves it.
+ */
+public final class RawJson implements JsonSerializable {
+
+    /**
+     * ObjectWriter attribute: write an empty raw value in place of the bytes, so an
+     * encoder can splice them into the output itself without copying them.
+     */
+    public static final String DEFERRED = RawJson.class.getName() + ".deferred";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final byte[] bytes;
+    private final int length;
+
+    public RawJson(byte[] bytes, int length) {
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    // Read-only view over the bytes; each caller gets its own position
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, length).asReadOnlyBuffer();
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // For encoders of other formats that need the values back, e.g. as BookFullDto
+    public <T> T read(ObjectReader reader) throws IOException {
+        return reader.readValue(bytes, 0, length);
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+
+        if (Boolean.TRUE.equals(provider.getAttribute(DEFERRED))) {
+            generator.writeRawValue("");
+            return;
+        }
+
+        if (generator instanceof JsonGeneratorImpl) {
+            generator.writeRawValue(toString());
+            return;
+        }
+
+        // Any other target (a token buffer, a binary format) gets the tokens re-read from the bytes
+        try (JsonParser parser = JSON.createParser(bytes, 0, length)) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+                    // Keeps the scale of prices (40.00) instead of going through double
+                    generator.writeNumber(parser.getDecimalValue());
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bookcatalog.dto.response;
+
+import java.time.Instant;
+
+/**
+ * A single-book response together with the row version and modification time it
+ * was read at; the controller turns them into {@code ETag} and {@code Last-Modified}.
+ */
+public record Versioned<T>(T body, long version, Instant lastModified) {
+}
@@ -0,0 +1,52 @@
+package com.example.bookcatalog.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Logs a failed request at the level its outcome deserves.
+ * <p>
+ * Exceptions {@link GlobalExceptionHandler} answers with a 4xx status
+ * ({@link BookNotFoundException}, {@link PreconditionFailedException}, a bad
+ * cursor's {@link IllegalArgumentException}, ...) are answers the API gives on purpose,
+ * so they go to DEBUG with just their message; anything else is an ERROR with its
+ * stack trace.
+ */
+public final class ErrorLogging {
+
+    private ErrorLogging() {
+    }
+
+    public static void logFailure(Logger log, Throwable error, String message, Object... args) {
+
+        if (!isClientError(error)) {
+            log.atError().setCause(error).log(message, args);
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            LoggingEventBuilder event = log.atDebug().setMessage(message + ": {}");
+            for (Object arg : args) {
+                event = event.addArgument(arg);
+            }
+            event.addArgument(error.getMessage()).log();
+        }
+    }
+
+    // Keep in step with the 4xx handlers in GlobalExceptionHandler
+    static boolean isClientError(Throwable error) {
+
+        if (error instanceof IllegalArgumentException
+                || error instanceof ServerWebInputException
+                || error instanceof DataIntegrityViolationException) {
+            return true;
+        }
+
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(error.getClass(), ResponseStatus.class);
+        return status != null && status.code().is4xxClientError();
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.bookcatalog.exception;
 
+import com.example.bookcatalog.config.PoolProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ServerWebExchange;
@@ -15,6 +19,13 @@ import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+
+    private final String retryAfterSeconds;
+
+    public GlobalExceptionHandler(PoolProperties pool) {
+        this.retryAfterSeconds = String.valueOf(Math.max(1, pool.retryAfter().toSeconds()));
+    }
+
     @ExceptionHandler(ServerWebInputException.class)
     public ResponseEntity<?> handleTypeMismatch(ServerWebInputException ex) {
 
@@ -71,6 +82,24 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // =========================
+    // STALE IF-MATCH (412)
+    // =========================
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public Mono<Map<String, Object>> handlePreconditionFailed(
+            PreconditionFailedException ex,
+            ServerWebExchange exchange) {
+
+        return Mono.just(Map.of(
+                "timestamp", LocalDateTime.now().toString(),
+                "status", HttpStatus.PRECONDITION_FAILED.value(),
+                "error", "Precondition Failed",
+                "message", ex.getMessage(),
+                "path", exchange.getRequest().getPath().value()
+        ));
+    }
+
     // =========================
     // DATABASE CONFLICT (409)
     // =========================
@@ -89,6 +118,28 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // =========================
+    // NO DB CONNECTION (503)
+    // =========================
+    // Pool exhausted past spring.r2dbc.pool.max-acquire-time, or the database is unreachable:
+    // fail fast and tell the client when to retry instead of queueing more work
+    @ExceptionHandler({DataAccessResourceFailureException.class, CannotCreateTransactionException.class})
+    public Mono<ResponseEntity<Map<String, Object>>> handleConnectionUnavailable(
+            Exception ex,
+            ServerWebExchange exchange) {
+
+        return Mono.just(ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now().toString(),
+                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "error", "Service Unavailable",
+                        "message", "No database connection available",
+                        "path", exchange.getRequest().getPath().value()
+                )));
+    }
+
     // =========================
     // GENERIC ERROR (500)
     // =========================
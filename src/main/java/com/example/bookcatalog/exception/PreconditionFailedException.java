@@ -0,0 +1,12 @@
+package com.example.bookcatalog.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(Long id) {
+        super("Book with id " + id + " was modified by another request");
+    }
+}
@@ -3,9 +3,12 @@ package com.example.bookcatalog.model;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Table("book")
@@ -18,6 +21,12 @@ public class Book {
     private BigDecimal price;
     @Column("publish_date")
     private LocalDate publishDate;
+    @Version
+    private Long version;
+    // Maintained by a database trigger
+    @ReadOnlyProperty
+    @Column("updated_at")
+    private Instant updatedAt;
 
     public Book() {}
 
@@ -47,10 +56,14 @@ public class Book {
     public String getAuthor() { return author; }
     public BigDecimal getPrice() { return price; }
     public LocalDate getPublishDate(){return publishDate;}
+    public Long getVersion() { return version; }
+    public Instant getUpdatedAt() { return updatedAt; }
 
     public void setId(Long id) { this.id = id; }
     public void setTitle(String title) { this.title = title; }
     public void setAuthor(String author) { this.author = author; }
     public void setPrice(BigDecimal price) { this.price = price; }
     public void setPublishDate(LocalDate publishDate){this.publishDate = publishDate;}
+    public void setVersion(Long version) { this.version = version; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
 }
\ No newline at end of file
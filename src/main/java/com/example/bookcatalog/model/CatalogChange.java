@@ -0,0 +1,23 @@
+package com.example.bookcatalog.model;
+
+import java.time.Instant;
+
+/**
+ * Catalog-wide change marker, read from the {@code catalog_change_log} that a
+ * statement trigger on {@code book} appends to.
+ *
+ * @param seq       log position of the latest committed writing statement
+ * @param recent    committed entries among the newest log positions; it grows when a
+ *                  writer that started earlier commits later, which {@code seq} alone misses
+ * @param changedAt time of the latest such statement
+ */
+public record CatalogChange(long seq, long recent, Instant changedAt) {
+
+    /**
+     * Whether the catalog has moved on since {@code earlier} was read. Within one log
+     * position {@code recent} only grows, as writers that started earlier commit.
+     */
+    public boolean isAfter(CatalogChange earlier) {
+        return seq > earlier.seq() || (seq == earlier.seq() && recent > earlier.recent());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.bookcatalog.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A book attribute that can be selected on its own: its JSON name in
+ * {@code fields=}, its column and the Java type the driver decodes it to.
+ */
+public enum BookField {
+
+    ID("id", "id", Long.class),
+    TITLE("title", "title", String.class),
+    AUTHOR("author", "author", String.class),
+    PRICE("price", "price", BigDecimal.class),
+    PUBLISH_DATE("publishDate", "publish_date", LocalDate.class);
+
+    private final String jsonName;
+    private final String column;
+    private final Class<?> type;
+    // Encoded once, so writing the key is a plain byte copy
+    private final SerializedString key;
+
+    BookField(String jsonName, String column, Class<?> type) {
+        this.jsonName = jsonName;
+        this.key = new SerializedString(jsonName);
+        this.column = column;
+        this.type = type;
+    }
+
+    /**
+     * Parses a comma-separated {@code fields=} value such as {@code title,price}.
+     * {@code id} is always included: keyset cursors and clients both need it.
+     */
+    public static Set<BookField> parse(String fields) {
+
+        Set<BookField> parsed = EnumSet.of(ID);
+
+        for (String name : fields.split(",")) {
+            parsed.add(byJsonName(name.trim()));
+        }
+
+        return parsed;
+    }
+
+    private static BookField byJsonName(String name) {
+
+        for (BookField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "Unknown field '" + name + "'; fields must be among id, title, author, price, publishDate");
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * Writes {@code "name": value} exactly as Jackson serializes the DTO property
+     * (numbers as numbers, {@code publishDate} as an ISO date, nulls kept).
+     */
+    void write(JsonGenerator generator, Object value) throws IOException {
+
+        generator.writeFieldName(key);
+
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+
+        switch (this) {
+            case ID -> generator.writeNumber((Long) value);
+            case PRICE -> generator.writeNumber((BigDecimal) value);
+            case PUBLISH_DATE -> generator.writeString(value.toString());
+            default -> generator.writeString((String) value);
+        }
+    }
+}
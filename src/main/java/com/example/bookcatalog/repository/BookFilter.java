@@ -0,0 +1,34 @@
+package com.example.bookcatalog.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Optional listing filters. Blank text filters are treated as absent so they
+ * never reach the generated SQL.
+ *
+ * @param q      full-text query over title and author
+ * @param title  case-insensitive substring of the title
+ * @param author case-insensitive substring of the author
+ * @param from   earliest publish date (inclusive)
+ * @param to     latest publish date (inclusive)
+ */
+public record BookFilter(String q, String title, String author, LocalDate from, LocalDate to) {
+
+    public BookFilter {
+        q = blankToNull(q);
+        title = blankToNull(title);
+        author = blankToNull(author);
+    }
+
+    public static BookFilter none() {
+        return new BookFilter(null, null, null, null, null);
+    }
+
+    public boolean hasSearch() {
+        return q != null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.bookcatalog.repository;
+
+import com.example.bookcatalog.dto.response.RawJson;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+import static com.example.bookcatalog.repository.BookField.ID;
+
+/**
+ * A page of rows written straight into a JSON array as the driver hands them
+ * over: no {@code Book}, no DTO and no per-row list entry is created, and the
+ * output matches what Jackson produces for the projection's DTO or map. The
+ * result is UTF-8 bytes that responses copy as they are (see {@link RawJson}).
+ * <p>
+ * At most {@code limit} rows are written. Rows past that (the look-ahead row
+ * used to detect a next page) are only counted, see {@link #hasMore()}.
+ * One instance fills exactly one query result; it is not thread-safe.
+ */
+public final class BookJsonRows {
+
+    // Plain factory: every value goes through a typed generator call, so no ObjectMapper is needed
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Sized so a typical full-DTO page fits without growing the buffer
+    private static final int ROW_BYTES = 128;
+
+    private final BookProjection<?> projection;
+    private final int limit;
+    private final Output out;
+    private final JsonGenerator generator;
+
+    private int read;
+    private Long lastId;
+    private RawJson json;
+
+    public BookJsonRows(BookProjection<?> projection, int limit) {
+        this.projection = projection;
+        this.limit = limit;
+        this.out = new Output(Math.min(limit, 1_000) * ROW_BYTES + 2);
+
+        try {
+            this.generator = JSON.createGenerator(out);
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends one row, read through {@code values} (e.g. {@code field -> row.get(field.column(), field.type())}).
+     */
+    public BookJsonRows write(Function<BookField, Object> values) {
+
+        if (++read > limit) {
+            return this;
+        }
+
+        try {
+            generator.writeStartObject();
+            for (BookField field : projection.fields()) {
+                Object value = values.apply(field);
+                if (field == ID) {
+                    lastId = (Long) value;
+                }
+                field.write(generator, value);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Closes the array; {@link #json()} is available afterwards.
+     */
+    public BookJsonRows finish() {
+
+        try {
+            generator.writeEndArray();
+            generator.close();
+            json = new RawJson(out.buffer(), out.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    public BookProjection<?> projection() {
+        return projection;
+    }
+
+    // Rows actually written, i.e. without the look-ahead row
+    public int count() {
+        return Math.min(read, limit);
+    }
+
+    public boolean hasMore() {
+        return read > limit;
+    }
+
+    // Id of the last written row, for the keyset cursor; null on an empty page
+    public Long lastId() {
+        return lastId;
+    }
+
+    public RawJson json() {
+        if (json == null) {
+            throw new IllegalStateException("finish() has not been called");
+        }
+        return json;
+    }
+
+    // Hands out its buffer instead of copying it like toByteArray()
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.bookcatalog.repository;
+
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.BookMinimalDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.bookcatalog.repository.BookField.AUTHOR;
+import static com.example.bookcatalog.repository.BookField.ID;
+import static com.example.bookcatalog.repository.BookField.PRICE;
+import static com.example.bookcatalog.repository.BookField.PUBLISH_DATE;
+import static com.example.bookcatalog.repository.BookField.TITLE;
+
+/**
+ * The shape a listing is read into: which columns the SELECT asks for and how
+ * a row's values become the response element, without an intermediate
+ * {@code Book} entity.
+ * <p>
+ * {@code dto=minimal} and {@code dto=full} map to their DTO classes; an explicit
+ * {@code fields=} list maps to an ordered map holding exactly those fields.
+ */
+public final class BookProjection<T> {
+
+    public static final BookProjection<BookMinimalDto> MINIMAL = new BookProjection<>("minimal",
+            EnumSet.of(ID, TITLE, AUTHOR),
+            values -> new BookMinimalDto(
+                    (Long) values.apply(ID),
+                    (String) values.apply(TITLE),
+                    (String) values.apply(AUTHOR)),
+            BookMinimalDto::getId);
+
+    public static final BookProjection<BookFullDto> FULL = new BookProjection<>("full",
+            EnumSet.allOf(BookField.class),
+            values -> new BookFullDto(
+                    (Long) values.apply(ID),
+                    (String) values.apply(TITLE),
+                    (String) values.apply(AUTHOR),
+                    (BigDecimal) values.apply(PRICE),
+                    (LocalDate) values.apply(PUBLISH_DATE)),
+            BookFullDto::getId);
+
+    private final String name;
+    private final Set<BookField> fields;
+    private final Function<Function<BookField, Object>, T> mapper;
+    private final Function<T, Long> id;
+    private final String selectList;
+
+    private BookProjection(String name, Set<BookField> fields, Function<Function<BookField, Object>, T> mapper,
+                           Function<T, Long> id) {
+        this.name = name;
+        this.fields = Collections.unmodifiableSet(EnumSet.copyOf(fields));
+        this.mapper = mapper;
+        this.id = id;
+        this.selectList = this.fields.stream()
+                .map(BookField::column)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * {@code fields} wins over {@code dto} when both are given; otherwise
+     * {@code dto=minimal} selects the minimal shape and anything else the full one.
+     */
+    public static BookProjection<?> resolve(String dto, String fields) {
+
+        if (fields != null && !fields.isBlank()) {
+            return of(BookField.parse(fields));
+        }
+
+        return "minimal".equalsIgnoreCase(dto) ? MINIMAL : FULL;
+    }
+
+    public static BookProjection<Map<String, Object>> of(Set<BookField> fields) {
+
+        // Iterated in declaration order, so the JSON keys come out in a stable order
+        Set<BookField> ordered = EnumSet.copyOf(fields);
+
+        return new BookProjection<>("fields", ordered,
+                values -> {
+                    Map<String, Object> book = new LinkedHashMap<>();
+                    for (BookField field : ordered) {
+                        book.put(field.jsonName(), values.apply(field));
+                    }
+                    return book;
+                },
+                book -> (Long) book.get(ID.jsonName()));
+    }
+
+    /**
+     * Builds one element from a column lookup, e.g. {@code field -> row.get(field.column(), field.type())}.
+     */
+    public T map(Function<BookField, Object> values) {
+        return mapper.apply(values);
+    }
+
+    public Long idOf(T book) {
+        return id.apply(book);
+    }
+
+    // Column list for the SELECT, in declaration order
+    public String selectList() {
+        return selectList;
+    }
+
+    public Set<BookField> fields() {
+        return fields;
+    }
+
+    // Equal projections produce the same page, which is what the page cache key needs
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BookProjection<?> other && name.equals(other.name) && fields.equals(other.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, fields);
+    }
+
+    @Override
+    public String toString() {
+        return name + fields;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bookcatalog.repository;
+
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.model.CatalogChange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Listing queries whose WHERE clause is built from the filters that are actually
+ * present, so every filter combination gets its own statement and its own plan
+ * instead of sharing one generic plan full of {@code :x IS NULL OR ...} branches.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Page of books ordered by id, or by relevance when {@link BookFilter#q()} is set.
+     * Only the projection's columns are selected and each row is mapped straight
+     * into the projection.
+     */
+    <T> Flux<T> findFiltered(BookFilter filter, long offset, int limit, BookProjection<T> projection);
+
+    /**
+     * Keyset (seek) page: the rows after {@code lastId} in id order. Jumps straight
+     * there through the primary key instead of scanning and discarding OFFSET rows.
+     */
+    <T> Flux<T> findFilteredAfter(BookFilter filter, long lastId, int limit, BookProjection<T> projection);
+
+    /**
+     * Same query as {@link #findFiltered}, but every row is written straight into
+     * {@code rows} as JSON instead of being emitted. Completes with {@code rows}
+     * once the array is closed; use a fresh instance per subscription.
+     */
+    Mono<BookJsonRows> writeFiltered(BookFilter filter, long offset, int limit, BookJsonRows rows);
+
+    /**
+     * Same query as {@link #findFilteredAfter}, written straight into {@code rows}.
+     */
+    Mono<BookJsonRows> writeFilteredAfter(BookFilter filter, long lastId, int limit, BookJsonRows rows);
+
+    Mono<Long> countFiltered(BookFilter filter);
+
+    /**
+     * Approximate number of books matching the filters, taken from the planner's
+     * row estimate instead of running a {@code COUNT(*)}.
+     */
+    Mono<Long> estimateFiltered(BookFilter filter);
+
+    /**
+     * Inserts all books as one batched statement inside a single transaction and
+     * returns the generated ids in input order. Either every row is written or none.
+     */
+    Flux<Long> insertAll(List<Book> books);
+
+    /**
+     * Every matching book, read through a database cursor so only the rows the
+     * subscriber has requested are fetched. Runs in one read-only transaction,
+     * which also gives the whole stream a consistent snapshot. Only the
+     * projection's columns are read.
+     */
+    <T> Flux<T> streamFiltered(BookFilter filter, BookProjection<T> projection);
+
+    /**
+     * Applies partial updates as one {@code UPDATE ... FROM (VALUES ...)} statement in
+     * a single transaction. {@code null} fields keep their current value. Returns the
+     * ids that existed and were updated.
+     */
+    Flux<Long> updateAll(List<Book> patches);
+
+    /**
+     * Deletes the given ids with one {@code DELETE ... WHERE id = ANY(...)} and
+     * returns the ids that existed.
+     */
+    Flux<Long> deleteByIds(List<Long> ids);
+
+    /**
+     * Deletes at most {@code limit} books matching the filter in one transaction
+     * and returns their ids. Callers repeat until fewer than {@code limit} come back,
+     * which keeps each transaction and its locks short.
+     */
+    Flux<Long> deleteFiltered(BookFilter filter, int limit);
+
+    /**
+     * One book by primary key, {@code SELECT * FROM book WHERE id = :id}. Declared
+     * here so the hottest read is timed like every other query; it takes precedence
+     * over the inherited {@code ReactiveCrudRepository} implementation.
+     */
+    Mono<Book> findById(Long id);
+
+    /**
+     * Overwrites one book with a single {@code UPDATE ... RETURNING *} and bumps its
+     * version. When {@code book.getVersion()} is set the row is only written if it
+     * still has that version. Empty when the id does not exist or the version is stale.
+     */
+    Mono<Book> updateReturning(Book book);
+
+    /**
+     * Deletes one book with a single {@code DELETE ... RETURNING id}, optionally only
+     * if it still has {@code expectedVersion}. Empty when nothing matched.
+     */
+    Mono<Long> deleteReturningId(Long id, Long expectedVersion);
+
+    /**
+     * Reads the catalog-wide change marker: a backward range scan over the newest
+     * {@code catalog_change_log} entries. Only committed entries are visible, so the
+     * marker never runs ahead of the data a later query sees.
+     */
+    Mono<CatalogChange> findLastChange();
+}
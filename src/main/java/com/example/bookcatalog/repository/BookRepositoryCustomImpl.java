@@ -0,0 +1,473 @@
+package com.example.bookcatalog.repository;
+
+import com.example.bookcatalog.config.StreamProperties;
+import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.model.CatalogChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String TS_QUERY = "websearch_to_tsquery('simple', :q)";
+
+    // Newest catalog_change_log positions counted by findLastChange; far more than writers in flight at once
+    private static final int CHANGE_WINDOW = 1_000;
+
+    // Top plan node, e.g. "Seq Scan on book  (cost=0.00..1.04 rows=4 width=4)"
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    // One timer per query and outcome; percentile histograms are switched on in application.properties
+    static final String QUERY_TIMER = "bookcatalog.db.query";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO book (title, author, price, publish_date) VALUES ($1, $2, $3, $4)";
+
+    private final R2dbcEntityTemplate template;
+    private final TransactionalOperator transactionalOperator;
+    private final TransactionalOperator readOnlyOperator;
+    private final StreamProperties streamProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Query, QueryTimers> queryTimers = new EnumMap<>(Query.class);
+
+    public BookRepositoryCustomImpl(R2dbcEntityTemplate template,
+                                    ReactiveTransactionManager transactionManager,
+                                    StreamProperties streamProperties,
+                                    MeterRegistry meterRegistry) {
+        this.template = template;
+        this.meterRegistry = meterRegistry;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.streamProperties = streamProperties;
+
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition();
+        readOnly.setReadOnly(true);
+        this.readOnlyOperator = TransactionalOperator.create(transactionManager, readOnly);
+
+        // Registered once up front; the per-completion path is just a map lookup
+        for (Query query : Query.values()) {
+            queryTimers.put(query, new QueryTimers(queryTimer(meterRegistry, query, "success"),
+                    queryTimer(meterRegistry, query, "error"), queryTimer(meterRegistry, query, "cancelled")));
+        }
+    }
+
+    @Override
+    public <T> Flux<T> findFiltered(BookFilter filter, long offset, int limit, BookProjection<T> projection) {
+        return filtered(filter, offset, limit, projection)
+                .map(row -> project(row, projection))
+                .all()
+                .as(result -> timed(Query.FIND_FILTERED, result));
+    }
+
+    @Override
+    public <T> Flux<T> findFilteredAfter(BookFilter filter, long lastId, int limit, BookProjection<T> projection) {
+        return filteredAfter(filter, lastId, limit, projection)
+                .map(row -> project(row, projection))
+                .all()
+                .as(result -> timed(Query.FIND_FILTERED_AFTER, result));
+    }
+
+    @Override
+    public Mono<BookJsonRows> writeFiltered(BookFilter filter, long offset, int limit, BookJsonRows rows) {
+        return filtered(filter, offset, limit, rows.projection())
+                .map(row -> rows.write(field -> row.get(field.column(), field.type())))
+                .all()
+                .then(Mono.fromSupplier(rows::finish))
+                .as(result -> timed(Query.FIND_FILTERED, result));
+    }
+
+    @Override
+    public Mono<BookJsonRows> writeFilteredAfter(BookFilter filter, long lastId, int limit, BookJsonRows rows) {
+        return filteredAfter(filter, lastId, limit, rows.projection())
+                .map(row -> rows.write(field -> row.get(field.column(), field.type())))
+                .all()
+                .then(Mono.fromSupplier(rows::finish))
+                .as(result -> timed(Query.FIND_FILTERED_AFTER, result));
+    }
+
+    private DatabaseClient.GenericExecuteSpec filtered(BookFilter filter, long offset, int limit,
+                                                       BookProjection<?> projection) {
+
+        Where where = Where.of(filter);
+        String orderBy = filter.hasSearch()
+                ? " ORDER BY ts_rank(search_vector, " + TS_QUERY + ") DESC, id"
+                : " ORDER BY id";
+
+        return where.bindTo(template.getDatabaseClient()
+                        .sql("SELECT " + projection.selectList() + " FROM book" + where + orderBy
+                                + " LIMIT :limit OFFSET :offset"))
+                .bind("limit", limit)
+                .bind("offset", offset);
+    }
+
+    private DatabaseClient.GenericExecuteSpec filteredAfter(BookFilter filter, long lastId, int limit,
+                                                            BookProjection<?> projection) {
+
+        Where where = Where.of(filter).and("id > :lastId", "lastId", lastId);
+
+        return where.bindTo(template.getDatabaseClient()
+                        .sql("SELECT " + projection.selectList() + " FROM book" + where + " ORDER BY id LIMIT :limit"))
+                .bind("limit", limit);
+    }
+
+    // Reads only the selected columns, by name, into the projection; no entity or converter involved
+    private static <T> T project(Readable row, BookProjection<T> projection) {
+        return projection.map(field -> row.get(field.column(), field.type()));
+    }
+
+    @Override
+    public <T> Flux<T> streamFiltered(BookFilter filter, BookProjection<T> projection) {
+
+        Where where = Where.of(filter);
+        String orderBy = filter.hasSearch()
+                ? " ORDER BY ts_rank(search_vector, " + TS_QUERY + ") DESC, id"
+                : " ORDER BY id";
+
+        return where.bindTo(template.getDatabaseClient()
+                        .sql("SELECT " + projection.selectList() + " FROM book" + where + orderBy))
+                // Fetch size > 0 makes the driver page through a portal as downstream demand arrives
+                .filter(statement -> statement.fetchSize(streamProperties.fetchSize()))
+                .map(row -> project(row, projection))
+                .all()
+                .as(readOnlyOperator::transactional)
+                .as(result -> timed(Query.STREAM_FILTERED, result));
+    }
+
+    @Override
+    public Mono<Long> countFiltered(BookFilter filter) {
+
+        Where where = Where.of(filter);
+
+        return where.bindTo(template.getDatabaseClient().sql("SELECT COUNT(*) FROM book" + where))
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .as(result -> timed(Query.COUNT_FILTERED, result));
+    }
+
+    @Override
+    public Mono<Long> estimateFiltered(BookFilter filter) {
+
+        Where where = Where.of(filter);
+
+        return where.bindTo(template.getDatabaseClient().sql("EXPLAIN SELECT 1 FROM book" + where))
+                .map(row -> row.get(0, String.class))
+                .first()
+                .map(BookRepositoryCustomImpl::parsePlanRows)
+                .as(result -> timed(Query.ESTIMATE_FILTERED, result));
+    }
+
+    @Override
+    public Flux<Long> insertAll(List<Book> books) {
+
+        if (books.isEmpty()) {
+            return Flux.empty();
+        }
+
+        // Statement.add() pipelines every binding over one connection instead of a round-trip per row
+        return template.getDatabaseClient()
+                .inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_SQL).returnGeneratedValues("id");
+
+                    for (int i = 0; i < books.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Book book = books.get(i);
+                        statement.bind(0, book.getTitle())
+                                .bind(1, book.getAuthor())
+                                .bind(2, book.getPrice());
+                        if (book.getPublishDate() != null) {
+                            statement.bind(3, book.getPublishDate());
+                        } else {
+                            statement.bindNull(3, LocalDate.class);
+                        }
+                    }
+
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+                })
+                .as(transactionalOperator::transactional)
+                .as(result -> timed(Query.INSERT_ALL, result));
+    }
+
+    @Override
+    public Flux<Long> updateAll(List<Book> patches) {
+
+        if (patches.isEmpty()) {
+            return Flux.empty();
+        }
+
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < patches.size(); i++) {
+            int p = i * 5;
+            values.append(i > 0 ? ", " : "")
+                    .append("($").append(p + 1).append("::bigint, $").append(p + 2).append("::varchar, $")
+                    .append(p + 3).append("::varchar, $").append(p + 4).append("::numeric, $")
+                    .append(p + 5).append("::date)");
+        }
+
+        String sql = "UPDATE book AS b SET " +
+                "title = COALESCE(v.title, b.title), " +
+                "author = COALESCE(v.author, b.author), " +
+                "price = COALESCE(v.price, b.price), " +
+                "publish_date = COALESCE(v.publish_date, b.publish_date), " +
+                "version = b.version + 1 " +
+                "FROM (VALUES " + values + ") AS v(id, title, author, price, publish_date) " +
+                "WHERE b.id = v.id RETURNING b.id";
+
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql);
+        for (int i = 0; i < patches.size(); i++) {
+            Book patch = patches.get(i);
+            int p = i * 5;
+            spec = bindNullable(spec, p, patch.getId(), Long.class);
+            spec = bindNullable(spec, p + 1, patch.getTitle(), String.class);
+            spec = bindNullable(spec, p + 2, patch.getAuthor(), String.class);
+            spec = bindNullable(spec, p + 3, patch.getPrice(), BigDecimal.class);
+            spec = bindNullable(spec, p + 4, patch.getPublishDate(), LocalDate.class);
+        }
+
+        return spec.map(row -> row.get(0, Long.class))
+                .all()
+                .as(transactionalOperator::transactional)
+                .as(result -> timed(Query.UPDATE_ALL, result));
+    }
+
+    @Override
+    public Flux<Long> deleteByIds(List<Long> ids) {
+
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return template.getDatabaseClient()
+                .sql("DELETE FROM book WHERE id = ANY(:ids) RETURNING id")
+                .bind("ids", ids.toArray(Long[]::new))
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .as(transactionalOperator::transactional)
+                .as(result -> timed(Query.DELETE_BY_IDS, result));
+    }
+
+    @Override
+    public Flux<Long> deleteFiltered(BookFilter filter, int limit) {
+
+        Where where = Where.of(filter);
+
+        return where.bindTo(template.getDatabaseClient()
+                        .sql("DELETE FROM book WHERE id IN (SELECT id FROM book" + where
+                                + " ORDER BY id LIMIT :limit) RETURNING id"))
+                .bind("limit", limit)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .as(transactionalOperator::transactional)
+                .as(result -> timed(Query.DELETE_FILTERED, result));
+    }
+
+    @Override
+    public Mono<Book> findById(Long id) {
+        return template.getDatabaseClient()
+                .sql("SELECT * FROM book WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> template.getConverter().read(Book.class, row, metadata))
+                .one()
+                .as(result -> timed(Query.FIND_BY_ID, result));
+    }
+
+    @Override
+    public Mono<Book> updateReturning(Book book) {
+
+        // One autocommitted statement: no pre-read round-trip and no lost update between read and write
+        Where where = new Where().and("id = :id", "id", book.getId());
+        if (book.getVersion() != null) {
+            where.and("version = :version", "version", book.getVersion());
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = where.bindTo(template.getDatabaseClient()
+                        .sql("UPDATE book SET title = :title, author = :author, price = :price, "
+                                + "publish_date = :publishDate, version = version + 1" + where + " RETURNING *"))
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("price", book.getPrice());
+
+        spec = book.getPublishDate() != null
+                ? spec.bind("publishDate", book.getPublishDate())
+                : spec.bindNull("publishDate", LocalDate.class);
+
+        return spec.map((row, metadata) -> template.getConverter().read(Book.class, row, metadata))
+                .one()
+                .as(result -> timed(Query.UPDATE_RETURNING, result));
+    }
+
+    @Override
+    public Mono<Long> deleteReturningId(Long id, Long expectedVersion) {
+
+        Where where = new Where().and("id = :id", "id", id);
+        if (expectedVersion != null) {
+            where.and("version = :version", "version", expectedVersion);
+        }
+
+        return where.bindTo(template.getDatabaseClient().sql("DELETE FROM book" + where + " RETURNING id"))
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .as(result -> timed(Query.DELETE_RETURNING_ID, result));
+    }
+
+    @Override
+    public Mono<CatalogChange> findLastChange() {
+        return template.getDatabaseClient()
+                .sql("SELECT max(seq) AS seq, count(*) AS recent, max(changed_at) AS changed_at "
+                        + "FROM catalog_change_log "
+                        + "WHERE seq > (SELECT max(seq) FROM catalog_change_log) - " + CHANGE_WINDOW)
+                .map(row -> new CatalogChange(row.get("seq", Long.class), row.get("recent", Long.class),
+                        row.get("changed_at", Instant.class)))
+                .one()
+                .as(result -> timed(Query.FIND_LAST_CHANGE, result));
+    }
+
+    // Measured from subscription until the last row (or the error) arrives, transaction included
+    private <T> Flux<T> timed(Query query, Flux<T> result) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return result.doFinally(signal -> sample.stop(queryTimers.get(query).of(signal)));
+        });
+    }
+
+    private <T> Mono<T> timed(Query query, Mono<T> result) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return result.doFinally(signal -> sample.stop(queryTimers.get(query).of(signal)));
+        });
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                     int index, T value, Class<T> type) {
+        return value != null ? spec.bind(index, value) : spec.bindNull(index, type);
+    }
+
+    static long parsePlanRows(String planLine) {
+
+        Matcher matcher = PLAN_ROWS.matcher(planLine);
+
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected EXPLAIN output: " + planLine);
+        }
+
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static Timer queryTimer(MeterRegistry meterRegistry, Query query, String outcome) {
+        return Timer.builder(QUERY_TIMER)
+                .description("Custom repository query latency")
+                .tag("query", query.tag)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The queries timed under {@link #QUERY_TIMER}; {@code tag} is the value of the
+     * {@code query} tag.
+     */
+    enum Query {
+
+        FIND_BY_ID("findById"),
+        FIND_FILTERED("findFiltered"),
+        FIND_FILTERED_AFTER("findFilteredAfter"),
+        STREAM_FILTERED("streamFiltered"),
+        COUNT_FILTERED("countFiltered"),
+        ESTIMATE_FILTERED("estimateFiltered"),
+        INSERT_ALL("insertAll"),
+        UPDATE_ALL("updateAll"),
+        DELETE_BY_IDS("deleteByIds"),
+        DELETE_FILTERED("deleteFiltered"),
+        UPDATE_RETURNING("updateReturning"),
+        DELETE_RETURNING_ID("deleteReturningId"),
+        FIND_LAST_CHANGE("findLastChange");
+
+        private final String tag;
+
+        Query(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private record QueryTimers(Timer success, Timer error, Timer cancelled) {
+
+        Timer of(SignalType signal) {
+            return switch (signal) {
+                case ON_ERROR -> error;
+                case CANCEL -> cancelled;
+                default -> success;
+            };
+        }
+    }
+
+    /**
+     * WHERE clause holding only the predicates whose filter value is present,
+     * together with their bind values.
+     */
+    static final class Where {
+
+        private final List<String> predicates = new ArrayList<>();
+        private final Map<String, Object> params = new LinkedHashMap<>();
+
+        static Where of(BookFilter filter) {
+
+            Where where = new Where();
+
+            if (filter.q() != null) {
+                where.and("search_vector @@ " + TS_QUERY, "q", filter.q());
+            }
+            if (filter.title() != null) {
+                where.and("title ILIKE '%' || :title || '%'", "title", filter.title());
+            }
+            if (filter.author() != null) {
+                where.and("author ILIKE '%' || :author || '%'", "author", filter.author());
+            }
+            if (filter.from() != null) {
+                where.and("publish_date >= :from", "from", filter.from());
+            }
+            if (filter.to() != null) {
+                where.and("publish_date <= :to", "to", filter.to());
+            }
+
+            return where;
+        }
+
+        Where and(String predicate, String name, Object value) {
+            predicates.add(predicate);
+            params.put(name, value);
+            return this;
+        }
+
+        DatabaseClient.GenericExecuteSpec bindTo(DatabaseClient.GenericExecuteSpec spec) {
+            for (Map.Entry<String, Object> param : params.entrySet()) {
+                spec = spec.bind(param.getKey(), param.getValue());
+            }
+            return spec;
+        }
+
+        @Override
+        public String toString() {
+            return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+        }
+    }
+}
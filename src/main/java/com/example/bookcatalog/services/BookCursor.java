@@ -0,0 +1,54 @@
+package com.example.bookcatalog.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination token.
+ * <p>
+ * Encodes the sort key and the last id returned on a page so the next page can
+ * seek with {@code WHERE id > :lastId} instead of using OFFSET.
+ */
+public final class BookCursor {
+
+    static final String SORT_KEY = "id";
+
+    private static final String SEPARATOR = ":";
+
+    private final long lastId;
+
+    private BookCursor(long lastId) {
+        this.lastId = lastId;
+    }
+
+    public static BookCursor after(long lastId) {
+        return new BookCursor(lastId);
+    }
+
+    public static BookCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 2);
+
+            if (parts.length != 2 || !SORT_KEY.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            return new BookCursor(Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = SORT_KEY + SEPARATOR + lastId;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bookcatalog.services;
+
+import com.example.bookcatalog.repository.BookFilter;
+import com.example.bookcatalog.repository.BookProjection;
+
+/**
+ * Normalized identity of a listing request, used as the page cache key.
+ * <p>
+ * {@code generation} changes after every committed write, so pages cached
+ * before the write are simply never looked up again and age out of the cache.
+ *
+ * @param afterId    keyset position decoded from the cursor, or {@code null} for offset paging
+ * @param projection columns and response shape ({@code dto=} or {@code fields=})
+ */
+public record BookPageKey(
+        long generation,
+        BookFilter filter,
+        int page,
+        int size,
+        Long afterId,
+        BookProjection<?> projection,
+        TotalMode total
+) {
+
+    public static BookPageKey of(long generation, BookFilter filter, int page, int size,
+                                 BookCursor cursor, BookProjection<?> projection, TotalMode total) {
+        return new BookPageKey(
+                generation,
+                filter,
+                cursor != null ? 0 : page,   // page is ignored when seeking with a cursor
+                size,
+                cursor != null ? cursor.getLastId() : null,
+                projection,
+                total
+        );
+    }
+
+    public boolean isKeyset() {
+        return afterId != null;
+    }
+}
@@ -1,23 +1,47 @@
 package com.example.bookcatalog.services;
 
+import com.example.bookcatalog.dto.BookBatchDeleteDto;
 import com.example.bookcatalog.dto.BookDto;
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.BookPatchDto;
+import com.example.bookcatalog.dto.response.BatchItemResult;
+import com.example.bookcatalog.dto.response.BatchWriteResult;
 import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.dto.response.Versioned;
+import com.example.bookcatalog.model.CatalogChange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 
 public interface BookService {
     Mono<BookDto> create(BookDto book);
-    Mono<BookDto> update(Long id, BookDto book);
-    Mono<Void> delete(Long id);
+    Flux<BatchItemResult> createAll(Flux<BookDto> books);
+    Mono<Versioned<BookDto>> update(Long id, BookDto book, Long expectedVersion);
+    Mono<Void> delete(Long id, Long expectedVersion);
+    Mono<BatchWriteResult> updateAll(Flux<BookPatchDto> patches);
+    Mono<BatchWriteResult> deleteAll(BookBatchDeleteDto request);
     Mono<PaginatedBooks> getAll(
             int page,
             int size,
+            String q,
             String title,
             String author,
             LocalDate from,
             LocalDate to,
-            String dto);
+            String dto,
+            String cursor,
+            String total,
+            String fields);
 
-    Mono<Object> getById(Long id, String dto);
+    Mono<CatalogChange> lastChange();
+
+    Flux<BookFullDto> stream(
+            String q,
+            String title,
+            String author,
+            LocalDate from,
+            LocalDate to);
+
+    Mono<Versioned<Object>> getById(Long id, String dto);
 }
\ No newline at end of file
@@ -1,20 +1,50 @@
 package com.example.bookcatalog.services;
 
+import com.example.bookcatalog.config.BatchProperties;
+import com.example.bookcatalog.config.DatabaseRouting;
+import com.example.bookcatalog.config.ListingProperties;
+import com.example.bookcatalog.dto.BookBatchDeleteDto;
 import com.example.bookcatalog.dto.BookDto;
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.BookPatchDto;
+import com.example.bookcatalog.dto.response.BatchItemResult;
+import com.example.bookcatalog.dto.response.BatchWriteResult;
 import com.example.bookcatalog.exception.BookNotFoundException;
+import com.example.bookcatalog.exception.PreconditionFailedException;
 import com.example.bookcatalog.mapper.BookMapper;
 import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.model.CatalogChange;
 import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.dto.response.Versioned;
+import com.example.bookcatalog.repository.BookFilter;
+import com.example.bookcatalog.repository.BookJsonRows;
+import com.example.bookcatalog.repository.BookProjection;
 import com.example.bookcatalog.repository.BookRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static com.example.bookcatalog.exception.ErrorLogging.logFailure;
 
 @Service
 public class BookServiceImpl implements BookService {
@@ -22,9 +52,39 @@ public class BookServiceImpl implements BookService {
     private static final Logger log = LoggerFactory.getLogger(BookServiceImpl.class);
 
     private final BookRepository repository;
+    private final Validator validator;
+    private final BatchProperties batch;
+    private final ListingProperties listing;
+    private final DatabaseRouting routing;
+    private final AsyncCache<Long, Book> booksById;
+    private final AsyncCache<BookPageKey, PaginatedBooks> pages;
+    private final SingleFlight<Long, Book> bookLoads = new SingleFlight<>();
+    private final SingleFlight<BookPageKey, PaginatedBooks> pageLoads = new SingleFlight<>();
+    private final AtomicLong generation = new AtomicLong();
+    // Shared for listing.changeCheckInterval, so cache hits cost at most one marker query per interval
+    private final Mono<CatalogChange> latestChange;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository,
+                           Optional<AsyncCache<Long, Book>> booksById,
+                           Optional<AsyncCache<BookPageKey, PaginatedBooks>> pages,
+                           Validator validator,
+                           BatchProperties batch,
+                           ListingProperties listing,
+                           DatabaseRouting routing) {
         this.repository = repository;
+        this.validator = validator;
+        this.batch = batch;
+        this.listing = listing;
+        this.routing = routing;
+        // Either cache can be switched off; concurrent identical loads are still coalesced
+        this.booksById = booksById.orElse(null);
+        this.pages = pages.orElse(null);
+
+        Mono<CatalogChange> change = Mono.defer(repository::findLastChange).contextWrite(routing::readOnly);
+        Duration interval = listing.changeCheckInterval();
+        this.latestChange = interval.isZero()
+                ? change
+                : change.cache(value -> interval, error -> Duration.ZERO, () -> Duration.ZERO);
     }
 
     // Mapper
@@ -37,10 +97,9 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
-    public Mono<PaginatedBooks> getAll(int page, int size, String title, String author,
-                                       LocalDate from, LocalDate to, String dto) {
-
-        PageRequest pageable = PageRequest.of(page, size);
+    public Mono<PaginatedBooks> getAll(int page, int size, String q, String title, String author,
+                                       LocalDate from, LocalDate to, String dto, String cursor,
+                                       String total, String fields) {
 
         if (from != null && to != null && from.isAfter(to)) {
             return Mono.error(
@@ -48,85 +107,462 @@ public class BookServiceImpl implements BookService {
             );
         }
 
-        Mono<Long> total = repository.countFiltered(title, author, from, to);
-        Flux<Book> books = repository.findFiltered(title, author, from, to, pageable);
+        if (page < 0 || size < 1) {
+            return Mono.error(new IllegalArgumentException("page must be >= 0 and size >= 1"));
+        }
 
-        return total.zipWith(books.collectList(), (t, list) -> {
+        if (size > listing.maxPageSize()) {
+            return Mono.error(new IllegalArgumentException("size must be <= " + listing.maxPageSize()));
+        }
 
-            List<?> mappedBooks;
+        BookFilter filter = new BookFilter(q, title, author, from, to);
+        TotalMode totalMode;
+        BookProjection<?> projection;
+        BookCursor position = null;
 
-            if ("minimal".equalsIgnoreCase(dto)) {
-                mappedBooks = list.stream()
-                        .map(BookMapper::toMinimalDto)
-                        .toList();
-            } else {
-                mappedBooks = list.stream()
-                        .map(BookMapper::toFullDto)
-                        .toList();
+        try {
+            totalMode = TotalMode.from(total);
+            projection = BookProjection.resolve(dto, fields);
+
+            if (cursor != null && !cursor.isBlank()) {
+                position = BookCursor.decode(cursor);
             }
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        if (filter.hasSearch() && position != null) {
+            // Search results are ordered by rank, so an id-based cursor cannot seek into them
+            return Mono.error(new IllegalArgumentException("cursor cannot be combined with q"));
+        }
+
+        BookPageKey key = BookPageKey.of(generation.get(), filter, page, size, position, projection, totalMode);
+
+        // Identical concurrent requests share one load; writes move on to a new generation
+        if (pages == null) {
+            return pageLoads.execute(key, () -> loadPage(key))
+                    .contextWrite(routing::readOnly);
+        }
+
+        // The cache subscribes to the load itself, so the caller's routing context is handed over explicitly
+        return Mono.deferContextual(context -> {
+                    BiFunction<BookPageKey, Executor, CompletableFuture<PaginatedBooks>> load = (k, executor) ->
+                            pageLoads.execute(k, () -> loadPage(k)).contextWrite(context).toFuture();
+                    CompletableFuture<PaginatedBooks> cached = pages.get(key, load);
+
+                    // The generation only sees this instance's writes; the marker sees every committed one
+                    return Mono.fromFuture(cached, true).flatMap(hit -> latestChange
+                            .filter(change -> change.isAfter(hit.change()))
+                            .flatMap(change -> {
+                                pages.asMap().remove(key, cached);
+                                return Mono.fromFuture(pages.get(key, load), true);
+                            })
+                            .defaultIfEmpty(hit));
+                })
+                .contextWrite(routing::readOnly);
+    }
+
+    // The marker is read first: a write landing in between makes the tag older than the page, never newer
+    private Mono<PaginatedBooks> loadPage(BookPageKey key) {
+        return repository.findLastChange().flatMap(change ->
+                (listing.directJson() ? loadJsonPage(key) : loadPage(key, key.projection()))
+                        .map(page -> page.at(change)));
+    }
+
+    // Rows arrive already in the response shape, so there is no Book -> DTO step here
+    private <T> Mono<PaginatedBooks> loadPage(BookPageKey key, BookProjection<T> projection) {
+
+        BookFilter filter = key.filter();
+        int size = key.size();
+        long offset = (long) key.page() * size;
+        Mono<Optional<Long>> totalCount = countTotal(key.total(), filter);
+
+        if (!key.isKeyset() && key.total() == TotalMode.EXACT) {
+
+            Flux<T> books = repository.findFiltered(filter, offset, size, projection);
+
+            return totalCount.zipWith(books.collectList(), (t, list) -> {
+
+                boolean hasNext = !list.isEmpty() && offset + list.size() < t.get();
+                // Hand out a cursor so clients can switch from OFFSET to keyset paging
+                String nextCursor = hasNext && !filter.hasSearch() ? cursorAfter(list, projection) : null;
+
+                return new PaginatedBooks(t.get(), list, key.page(), size, nextCursor, hasNext, false);
+            });
+        }
 
-            return new PaginatedBooks(t, mappedBooks);
+        // One extra row tells us whether another page exists without relying on the total
+        Flux<T> books = key.isKeyset()
+                ? repository.findFilteredAfter(filter, key.afterId(), size + 1, projection)
+                : repository.findFiltered(filter, offset, size + 1, projection);
+
+        return totalCount.zipWith(books.collectList(), (t, list) -> {
+
+            boolean hasNext = list.size() > size;
+            List<T> pageBooks = hasNext ? list.subList(0, size) : list;
+            String nextCursor = hasNext && !filter.hasSearch() ? cursorAfter(pageBooks, projection) : null;
+
+            return new PaginatedBooks(t.orElse(null), pageBooks, pageNumber(key), size, nextCursor, hasNext,
+                    key.total() == TotalMode.ESTIMATE);
         });
     }
 
+    // Same paging rules as loadPage, but the rows go straight into the JSON body
+    private Mono<PaginatedBooks> loadJsonPage(BookPageKey key) {
+
+        BookFilter filter = key.filter();
+        int size = key.size();
+        long offset = (long) key.page() * size;
+        Mono<Optional<Long>> totalCount = countTotal(key.total(), filter);
+
+        if (!key.isKeyset() && key.total() == TotalMode.EXACT) {
+
+            Mono<BookJsonRows> rows = Mono.defer(() ->
+                    repository.writeFiltered(filter, offset, size, new BookJsonRows(key.projection(), size)));
+
+            return totalCount.zipWith(rows, (t, page) -> {
+
+                boolean hasNext = page.count() > 0 && offset + page.count() < t.get();
+                String nextCursor = hasNext && !filter.hasSearch() ? BookCursor.after(page.lastId()).encode() : null;
+
+                return new PaginatedBooks(t.get(), page.json(), key.page(), size, nextCursor, hasNext, false);
+            });
+        }
+
+        // The look-ahead row is read but not written, see BookJsonRows
+        Mono<BookJsonRows> rows = Mono.defer(() -> {
+            BookJsonRows page = new BookJsonRows(key.projection(), size);
+            return key.isKeyset()
+                    ? repository.writeFilteredAfter(filter, key.afterId(), size + 1, page)
+                    : repository.writeFiltered(filter, offset, size + 1, page);
+        });
+
+        return totalCount.zipWith(rows, (t, page) -> {
+
+            boolean hasNext = page.hasMore();
+            String nextCursor = hasNext && !filter.hasSearch() ? BookCursor.after(page.lastId()).encode() : null;
+
+            return new PaginatedBooks(t.orElse(null), page.json(), pageNumber(key), size, nextCursor, hasNext,
+                    key.total() == TotalMode.ESTIMATE);
+        });
+    }
+
+    private Mono<Optional<Long>> countTotal(TotalMode mode, BookFilter filter) {
+        return switch (mode) {
+            case EXACT -> repository.countFiltered(filter).map(Optional::of);
+            case ESTIMATE -> repository.estimateFiltered(filter).map(Optional::of);
+            case NONE -> Mono.just(Optional.empty());
+        };
+    }
+
+    // A page reached through a cursor has no page number
+    private static Integer pageNumber(BookPageKey key) {
+        return key.isKeyset() ? null : key.page();
+    }
+
+    private <T> String cursorAfter(List<T> books, BookProjection<T> projection) {
+        return BookCursor.after(projection.idOf(books.get(books.size() - 1))).encode();
+    }
+
     @Override
-    public Mono<Object> getById(Long id, String dto) {
+    public Mono<CatalogChange> lastChange() {
+        return repository.findLastChange()
+                .contextWrite(routing::readOnly);
+    }
 
-        log.info("Buscando libro con ID: {}", id);
+    @Override
+    public Flux<BookFullDto> stream(String q, String title, String author, LocalDate from, LocalDate to) {
 
-        return repository.findById(id)
+        if (from != null && to != null && from.isAfter(to)) {
+            return Flux.error(
+                    new IllegalArgumentException("publishDateFrom must be before publishDateTo")
+            );
+        }
+
+        // No collectList here: each row is read into its DTO and written as soon as the client asks for it
+        return repository.streamFiltered(new BookFilter(q, title, author, from, to), BookProjection.FULL)
+                .contextWrite(routing::readOnly);
+    }
+
+    // Concurrent misses for the same id share one load; a missing book is not cached
+    private Mono<Book> findBook(Long id) {
+
+        if (booksById == null) {
+            return bookLoads.execute(id, () -> repository.findById(id))
+                    .contextWrite(routing::readOnly);
+        }
+
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> booksById.get(id, (key, executor) ->
+                        bookLoads.execute(key, () -> repository.findById(key)).contextWrite(context).toFuture()), true))
+                .contextWrite(routing::readOnly);
+    }
+
+    @Override
+    public Mono<Versioned<Object>> getById(Long id, String dto) {
+
+        log.debug("Buscando libro con ID: {}", id);
+
+        return findBook(id)
                 .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .doOnSuccess(book -> log.info("Libro encontrado: {}", book))
-                .doOnError(e -> log.error("Error buscando libro con ID {}: {}", id, e.getMessage()))
+                .doOnSuccess(book -> log.debug("Libro encontrado: {}", book))
+                .doOnError(e -> logFailure(log, e, "Error buscando libro con ID {}", id))
                 .map(book -> {
 
                     if ("minimal".equalsIgnoreCase(dto)) {
-                        return BookMapper.toMinimalDto(book);
+                        return new Versioned<>(BookMapper.toMinimalDto(book), book.getVersion(), book.getUpdatedAt());
                     }
 
-                    return BookMapper.toFullDto(book);
+                    return new Versioned<>(BookMapper.toFullDto(book), book.getVersion(), book.getUpdatedAt());
                 });
     }
 
     @Override
     public Mono<BookDto> create(BookDto bookDto) {
-        log.info("Creando libro: {}", bookDto);
-        return repository.save(toEntity(bookDto))
-                .doOnSuccess(saved -> log.info("Libro creado con ID: {}", saved.getId()))
-                .doOnError(e -> log.error("Error creando libro: {}", e.getMessage(), e))
+        log.debug("Creando libro: {}", bookDto);
+        Book book = toEntity(bookDto);
+        // The id comes from the sequence; a client-supplied one would be inserted as-is and collide with it later
+        book.setId(null);
+        return repository.save(book)
+                .doOnSuccess(saved -> written())
+                .doOnSuccess(saved -> log.debug("Libro creado con ID: {}", saved.getId()))
+                .doOnError(e -> logFailure(log, e, "Error creando libro"))
                 .map(this::toDto);
     }
 
     @Override
-    public Mono<BookDto> update(Long id, BookDto bookDto) {
+    public Flux<BatchItemResult> createAll(Flux<BookDto> books) {
+        // Chunks are written one after another so a large feed never holds more than one pool connection
+        return books.index()
+                .buffer(batch.chunkSize())
+                .concatMap(this::createChunk);
+    }
 
-        log.info("Actualizando libro ID {} con datos: {}", id, bookDto);
+    private Flux<BatchItemResult> createChunk(List<Tuple2<Long, BookDto>> chunk) {
 
-        return repository.findById(id)
-                .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .flatMap(existing -> {
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Book> valid = new ArrayList<>();
 
-                    existing.setTitle(bookDto.getTitle());
-                    existing.setAuthor(bookDto.getAuthor());
-                    existing.setPrice(bookDto.getPrice());
-                    existing.setPublishDate(bookDto.getPublishDate());
+        for (int i = 0; i < chunk.size(); i++) {
+            long index = chunk.get(i).getT1();
+            BookDto dto = chunk.get(i).getT2();
+            List<String> errors = validate(dto);
 
-                    return repository.save(existing);
+            if (errors.isEmpty()) {
+                Book book = toEntity(dto);
+                book.setId(null);
+                positions.add(i);
+                valid.add(book);
+            } else {
+                results[i] = BatchItemResult.invalid(index, errors);
+            }
+        }
+
+        return repository.insertAll(valid)
+                .collectList()
+                .map(ids -> {
+                    for (int j = 0; j < ids.size(); j++) {
+                        int position = positions.get(j);
+                        results[position] = BatchItemResult.created(chunk.get(position).getT1(), ids.get(j));
+                    }
+                    if (!ids.isEmpty()) {
+                        written();
+                    }
+                    return results;
                 })
-                .doOnSuccess(updated -> log.info("Libro actualizado: {}", updated))
-                .doOnError(e -> log.error("Error actualizando libro ID {}: {}", id, e.getMessage()))
-                .map(this::toDto);
+                .onErrorResume(e -> {
+                    // The chunk is one transaction, so none of its rows were written
+                    log.error("Error creando lote de {} libros: {}", valid.size(), e.getMessage());
+                    String error = e instanceof DataIntegrityViolationException
+                            ? "Database integrity violation"
+                            : "Insert failed";
+                    for (int position : positions) {
+                        results[position] = BatchItemResult.failed(chunk.get(position).getT1(), error);
+                    }
+                    return Mono.just(results);
+                })
+                .flatMapIterable(Arrays::asList);
     }
 
     @Override
-    public Mono<Void> delete(Long id) {
-        log.info("Deleting book with id={}", id);
-        return repository.findById(id)
-                .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .flatMap(repository::delete)
-                .doOnSuccess(v -> log.info("Libro eliminado con ID: {}", id))
-                .doOnError(e -> log.error("Error eliminando libro ID {}: {}", id, e.getMessage()));
+    public Mono<BatchWriteResult> updateAll(Flux<BookPatchDto> patches) {
+
+        // Streamed like createAll: each chunk is validated and written before the next one is read.
+        // A bad item stops the request at its chunk; the chunks before it stay applied.
+        return Mono.defer(() -> {
+                    AtomicLong applied = new AtomicLong();
+                    return patches.index()
+                            .buffer(batch.chunkSize())
+                            .concatMap(chunk -> updateChunk(chunk, applied))
+                            .reduce(BatchWriteResult.ofIds(0, List.of()), BatchWriteResult::plus);
+                })
+                .doOnSuccess(result -> log.info("Libros actualizados: {}", result.affected()))
+                .doOnError(e -> logFailure(log, e, "Error actualizando lote de libros"));
+    }
+
+    private Mono<BatchWriteResult> updateChunk(List<Tuple2<Long, BookPatchDto>> chunk, AtomicLong applied) {
+
+        Set<Long> ids = new LinkedHashSet<>();
+        List<Book> updates = new ArrayList<>(chunk.size());
+
+        for (Tuple2<Long, BookPatchDto> item : chunk) {
+            BookPatchDto patch = item.getT2();
+            List<String> errors = validate(patch);
+
+            if (!errors.isEmpty()) {
+                return Mono.error(new IllegalArgumentException(
+                        "Invalid item " + item.getT1() + ": " + String.join(", ", errors) + appliedSoFar(applied)));
+            }
+            // One VALUES row per id, otherwise PostgreSQL picks an arbitrary one to apply
+            if (!ids.add(patch.getId())) {
+                return Mono.error(new IllegalArgumentException(
+                        "Duplicate id in batch: " + patch.getId() + appliedSoFar(applied)));
+            }
+
+            updates.add(new Book(patch.getId(), patch.getTitle(), patch.getAuthor(),
+                    patch.getPrice(), patch.getPublishDate()));
+        }
+
+        log.debug("Actualizando lote de {} libros", updates.size());
+
+        return repository.updateAll(updates)
+                .doOnNext(this::invalidate)
+                .collectList()
+                .map(updated -> BatchWriteResult.ofIds(updated.size(), missing(ids, updated)))
+                .doOnNext(result -> applied.addAndGet(result.affected()));
+    }
+
+    private static String appliedSoFar(AtomicLong applied) {
+        return applied.get() > 0 ? " (" + applied.get() + " books from earlier chunks were already updated)" : "";
+    }
+
+    @Override
+    public Mono<BatchWriteResult> deleteAll(BookBatchDeleteDto request) {
+
+        BookFilter filter = new BookFilter(request.getQ(), request.getTitle(), request.getAuthor(),
+                request.getPublishDateFrom(), request.getPublishDateTo());
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+
+        if (byIds == !filter.equals(BookFilter.none())) {
+            return Mono.error(new IllegalArgumentException("Provide either ids or at least one filter"));
+        }
+
+        if (byIds) {
+
+            if (request.getIds().stream().anyMatch(Objects::isNull)) {
+                return Mono.error(new IllegalArgumentException("ids must not contain null"));
+            }
+
+            Set<Long> requested = new LinkedHashSet<>(request.getIds());
+            log.info("Eliminando lote de {} libros", requested.size());
+
+            return Flux.fromIterable(requested)
+                    .buffer(batch.chunkSize())
+                    .concatMap(repository::deleteByIds)
+                    .doOnNext(this::invalidate)
+                    .collectList()
+                    .map(deleted -> BatchWriteResult.ofIds(deleted.size(), missing(requested, deleted)))
+                    .doOnSuccess(result -> log.info("Libros eliminados: {}", result.affected()))
+                    .doOnError(e -> log.error("Error eliminando lote de libros: {}", e.getMessage()));
+        }
+
+        if (filter.from() != null && filter.to() != null
+                && filter.from().isAfter(filter.to())) {
+            return Mono.error(
+                    new IllegalArgumentException("publishDateFrom must be before publishDateTo")
+            );
+        }
+
+        log.info("Eliminando libros por filtro: {}", filter);
+
+        // Each round is its own short transaction; stop once a round comes back short
+        return deleteChunk(filter)
+                .expand(deleted -> deleted.size() < batch.chunkSize() ? Mono.empty() : deleteChunk(filter))
+                .map(deleted -> {
+                    deleted.forEach(this::invalidate);
+                    return deleted.size();
+                })
+                .reduce(0L, Long::sum)
+                .map(BatchWriteResult::ofFilter)
+                .doOnSuccess(result -> log.info("Libros eliminados: {}", result.affected()))
+                .doOnError(e -> log.error("Error eliminando libros por filtro: {}", e.getMessage()));
     }
 
+    private Mono<List<Long>> deleteChunk(BookFilter filter) {
+        return repository.deleteFiltered(filter, batch.chunkSize()).collectList();
+    }
+
+    private static List<Long> missing(Set<Long> requested, List<Long> found) {
+        Set<Long> remaining = new LinkedHashSet<>(requested);
+        found.forEach(remaining::remove);
+        return List.copyOf(remaining);
+    }
 
-}
\ No newline at end of file
+    private List<String> validate(Object dto) {
+
+        if (dto == null) {
+            return List.of("Book must not be null");
+        }
+
+        return validator.validate(dto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public Mono<Versioned<BookDto>> update(Long id, BookDto bookDto, Long expectedVersion) {
+
+        log.debug("Actualizando libro ID {} con datos: {}", id, bookDto);
+
+        Book book = toEntity(bookDto);
+        book.setId(id);
+        book.setVersion(expectedVersion);
+
+        return repository.updateReturning(book)
+                .switchIfEmpty(notWritten(id, expectedVersion))
+                .doOnSuccess(updated -> invalidate(id))
+                .doOnSuccess(updated -> log.debug("Libro actualizado: {}", updated))
+                .doOnError(e -> logFailure(log, e, "Error actualizando libro ID {}", id))
+                .map(updated -> new Versioned<>(toDto(updated), updated.getVersion(), updated.getUpdatedAt()));
+    }
+
+    @Override
+    public Mono<Void> delete(Long id, Long expectedVersion) {
+        log.debug("Deleting book with id={}", id);
+        return repository.deleteReturningId(id, expectedVersion)
+                .switchIfEmpty(notWritten(id, expectedVersion))
+                .doOnNext(this::invalidate)
+                .then()
+                .doOnSuccess(v -> log.debug("Libro eliminado con ID: {}", id))
+                .doOnError(e -> logFailure(log, e, "Error eliminando libro ID {}", id));
+    }
+
+    // A conditional write that matched nothing was either aimed at a missing book or a stale version
+    private <T> Mono<T> notWritten(Long id, Long expectedVersion) {
+
+        if (expectedVersion == null) {
+            return Mono.error(new BookNotFoundException(id));
+        }
+
+        return repository.existsById(id)
+                .flatMap(exists -> Mono.error(exists
+                        ? new PreconditionFailedException(id)
+                        : new BookNotFoundException(id)));
+    }
+
+    // Called once a write has committed
+    private void invalidate(Long id) {
+        if (booksById != null) {
+            booksById.synchronous().invalidate(id);
+        }
+        // A lookup that started before the write must not be joined by later readers
+        bookLoads.forget(id);
+        written();
+    }
+
+    private void written() {
+        generation.incrementAndGet();
+        routing.recordWrite();
+    }
+}
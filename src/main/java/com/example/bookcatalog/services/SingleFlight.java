@@ -0,0 +1,50 @@
+package com.example.bookcatalog.services;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight load per key among all concurrent subscribers.
+ * <p>
+ * The first subscriber for a key triggers the load; everyone who subscribes
+ * while it is running gets the same result. The key is released as soon as the
+ * load terminates, so the next caller after that starts a fresh load (results
+ * are not cached here).
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, loader)));
+    }
+
+    /**
+     * Stops handing out the current in-flight load for {@code key}, e.g. because
+     * a write made its result stale. Subscribers already attached still get it.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<V> share(K key, Supplier<Mono<V>> loader) {
+
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+
+        Mono<V> shared = Mono.defer(loader)
+                // Only remove our own entry; a newer load may already own the key after forget()
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+
+        self.set(shared);
+        return shared;
+    }
+}
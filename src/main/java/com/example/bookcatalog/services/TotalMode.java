@@ -0,0 +1,31 @@
+package com.example.bookcatalog.services;
+
+/**
+ * How the total number of matching books is computed for a listing.
+ */
+public enum TotalMode {
+
+    /** Exact {@code COUNT(*)}; costs roughly as much as the page query itself. */
+    EXACT,
+
+    /** Planner row estimate; cheap but approximate. */
+    ESTIMATE,
+
+    /** No total at all; only {@code hasNext} is reported. */
+    NONE;
+
+    public static TotalMode from(String value) {
+
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+
+        for (TotalMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException("total must be one of exact, estimate or none");
+    }
+}
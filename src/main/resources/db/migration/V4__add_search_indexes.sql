@@ -0,0 +1,17 @@
+-- Trigram indexes so the ILIKE '%...%' title/author filters stop scanning the whole table
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_book_title_trgm ON book USING gin (title gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_book_author_trgm ON book USING gin (author gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_book_publish_date ON book (publish_date);
+
+-- Full-text document for the ranked q= search (title weighs more than author)
+ALTER TABLE book
+    ADD COLUMN search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('simple', coalesce(author, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_book_search_vector ON book USING gin (search_vector);
@@ -0,0 +1,3 @@
+-- Optimistic locking: every write bumps the version, clients send it back as If-Match
+ALTER TABLE book
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
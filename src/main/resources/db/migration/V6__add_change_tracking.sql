@@ -0,0 +1,41 @@
+-- Per-row modification time, served as Last-Modified on GET /books/{id}
+ALTER TABLE book
+    ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+CREATE OR REPLACE FUNCTION book_touch_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_book_touch_updated_at
+    BEFORE UPDATE ON book
+    FOR EACH ROW EXECUTE FUNCTION book_touch_updated_at();
+
+-- Catalog-wide change log: each writing statement appends one row. Writers only insert, so they
+-- never wait on each other. GET /books validates ETag / If-Modified-Since against the newest
+-- committed entries without running the page query.
+CREATE TABLE catalog_change_log (
+    seq        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    changed_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
+
+INSERT INTO catalog_change_log DEFAULT VALUES;
+
+CREATE OR REPLACE FUNCTION log_catalog_change() RETURNS trigger AS $$
+DECLARE
+    logged BIGINT;
+BEGIN
+    INSERT INTO catalog_change_log DEFAULT VALUES RETURNING seq INTO logged;
+    -- Readers only look at the newest 1000 entries; older ones are trimmed now and then
+    IF logged % 1000 = 0 THEN
+        DELETE FROM catalog_change_log WHERE seq <= logged - 10000;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_book_catalog_change
+    AFTER INSERT OR UPDATE OR DELETE ON book
+    FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_change();
@@ -0,0 +1,74 @@
+package com.example.bookcatalog.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogFilterTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        accessLogger.detachAppender(appender);
+    }
+
+    @Test
+    void shouldLogOneStructuredLineWhenSampled() {
+
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 1.0, Duration.ofSeconds(1)));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/books/1"));
+
+        StepVerifier.create(filter.filter(exchange, respondWith(HttpStatus.OK))).verifyComplete();
+
+        assertThat(appender.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .asString()
+                .startsWith("method=GET path=/books/1 status=200 durationMs=");
+    }
+
+    @Test
+    void shouldSkipUnsampledRequestsButAlwaysLogServerErrors() {
+
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 0.0, Duration.ofSeconds(1)));
+
+        StepVerifier.create(filter.filter(
+                        MockServerWebExchange.from(MockServerHttpRequest.get("/books")),
+                        respondWith(HttpStatus.OK)))
+                .verifyComplete();
+        StepVerifier.create(filter.filter(
+                        MockServerWebExchange.from(MockServerHttpRequest.get("/books")),
+                        respondWith(HttpStatus.INTERNAL_SERVER_ERROR)))
+                .verifyComplete();
+
+        assertThat(appender.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .asString()
+                .contains("status=500");
+    }
+
+    private static WebFilterChain respondWith(HttpStatus status) {
+        return exchange -> Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(status));
+    }
+}
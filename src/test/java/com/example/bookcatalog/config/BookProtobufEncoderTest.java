@@ -0,0 +1,98 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.BookMinimalDto;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.repository.BookField;
+import com.example.bookcatalog.repository.BookJsonRows;
+import com.example.bookcatalog.repository.BookProjection;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookProtobufEncoderTest {
+
+    private final BookProtobufEncoder encoder = new BookProtobufEncoder(Jackson2ObjectMapperBuilder.json().build());
+
+    private final BookFullDto cleanCode = new BookFullDto(1L, "Clean Code", "Robert Martin",
+            new BigDecimal("40.00"), LocalDate.of(2008, 8, 1));
+    private final BookFullDto refactoring = new BookFullDto(2L, "Refactoring", null, BigDecimal.ZERO, null);
+
+    @Test
+    void shouldWritePageFollowingTheSchema() throws Exception {
+
+        PaginatedBooks page = BookProtobufReader.readPage(encode(
+                new PaginatedBooks(9L, List.of(cleanCode, refactoring), 1, 2, "aWQ6Mg", true, false)));
+
+        assertThat(page.getTotal()).isEqualTo(9L);
+        assertThat(page.getPage()).isEqualTo(1);
+        assertThat(page.getSize()).isEqualTo(2);
+        assertThat(page.getTotalPages()).isEqualTo(5L);
+        assertThat(page.getNextCursor()).isEqualTo("aWQ6Mg");
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(page.isTotalEstimated()).isFalse();
+        assertThat(books(page)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(cleanCode, refactoring);
+        // The scale travels with the price: 40.00, not 40
+        assertThat(((BookFullDto) page.getBooks().get(0)).getPrice()).hasToString("40.00");
+    }
+
+    @Test
+    void shouldLeaveFieldsOutsideTheProjectionOffTheWire() throws Exception {
+
+        BookJsonRows rows = new BookJsonRows(BookProjection.of(BookField.parse("price")), 5);
+        rows.write(field -> field == BookField.ID ? 1L : new BigDecimal("40.00"));
+        rows.finish();
+
+        PaginatedBooks minimal = BookProtobufReader.readPage(encode(
+                new PaginatedBooks(null, List.of(new BookMinimalDto(1L, "Clean Code", "Robert Martin")), 0, 1,
+                        null, false, false)));
+        PaginatedBooks raw = BookProtobufReader.readPage(encode(
+                new PaginatedBooks(null, rows.json(), 0, rows.count(), null, false, false)));
+
+        assertThat(minimal.getTotal()).isNull();
+        assertThat(books(minimal)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(new BookFullDto(1L, "Clean Code", "Robert Martin", null, null));
+        assertThat(books(raw)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(new BookFullDto(1L, null, null, new BigDecimal("40.00"), null));
+    }
+
+    @Test
+    void shouldStreamLengthPrefixedBooks() throws Exception {
+
+        DataBuffer joined = DataBufferUtils.join(encoder.encode(Flux.just(cleanCode, refactoring),
+                DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(BookFullDto.class),
+                BookProtobufEncoder.APPLICATION_PROTOBUF, Map.of())).block();
+
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+
+        assertThat(BookProtobufReader.readStream(bytes)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(cleanCode, refactoring);
+    }
+
+    private static List<Object> books(PaginatedBooks page) {
+        return List.copyOf(page.getBooks());
+    }
+
+    private byte[] encode(PaginatedBooks page) {
+
+        DataBuffer buffer = encoder.encodeValue(page, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forClass(PaginatedBooks.class), BookProtobufEncoder.APPLICATION_PROTOBUF, Map.of());
+
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.dto.BookFullDto;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client-side reader for {@code books.proto}, written the way generated parsers
+ * work, so tests and benchmarks can decode what {@link BookProtobufEncoder} sends.
+ */
+public final class BookProtobufReader {
+
+    private BookProtobufReader() {
+    }
+
+    public static PaginatedBooks readPage(byte[] bytes) throws IOException {
+
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        List<BookFullDto> books = new ArrayList<>();
+        Long total = null;
+        String nextCursor = null;
+        boolean hasNext = false;
+        boolean totalEstimated = false;
+        Integer page = null;
+        int size = 0;
+
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> books.add(readEmbeddedBook(in));
+                case 2 -> total = in.readInt64();
+                case 3 -> hasNext = in.readBool();
+                case 4 -> nextCursor = in.readString();
+                case 5 -> totalEstimated = in.readBool();
+                case 6 -> page = in.readInt32();
+                case 7 -> size = in.readInt32();
+                default -> in.skipField(tag);
+            }
+        }
+
+        // total_pages (8) is derived from total and size, as in PaginatedBooks
+        return new PaginatedBooks(total, books, page, size, nextCursor, hasNext, totalEstimated);
+    }
+
+    // Length-prefixed Book messages, as sent by GET /books/stream
+    public static List<BookFullDto> readStream(byte[] bytes) throws IOException {
+
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        List<BookFullDto> books = new ArrayList<>();
+
+        while (!in.isAtEnd()) {
+            books.add(readEmbeddedBook(in));
+        }
+
+        return books;
+    }
+
+    private static BookFullDto readEmbeddedBook(CodedInputStream in) throws IOException {
+
+        int limit = in.pushLimit(in.readRawVarint32());
+        BookFullDto book = new BookFullDto();
+
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> book.setId(in.readInt64());
+                case 2 -> book.setTitle(in.readString());
+                case 3 -> book.setAuthor(in.readString());
+                case 4 -> book.setPrice(readDecimal(in));
+                case 5 -> book.setPublishDate(LocalDate.ofEpochDay(in.readInt32()));
+                default -> in.skipField(tag);
+            }
+        }
+
+        in.popLimit(limit);
+        return book;
+    }
+
+    private static BigDecimal readDecimal(CodedInputStream in) throws IOException {
+
+        int limit = in.pushLimit(in.readRawVarint32());
+        long unscaled = 0;
+        int scale = 0;
+
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> unscaled = in.readInt64();
+                case 2 -> scale = in.readInt32();
+                default -> in.skipField(tag);
+            }
+        }
+
+        in.popLimit(limit);
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+}
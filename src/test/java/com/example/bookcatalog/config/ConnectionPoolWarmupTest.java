@@ -0,0 +1,50 @@
+package com.example.bookcatalog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionPoolWarmupTest {
+
+    private final ConnectionPool pool = mock(ConnectionPool.class);
+
+    @Test
+    void shouldOpenInitialConnections() {
+
+        when(pool.warmup()).thenReturn(Mono.just(10));
+
+        new ConnectionPoolWarmup(pool, new PoolProperties(true, Duration.ofSeconds(1), Duration.ofSeconds(1)))
+                .run(new DefaultApplicationArguments());
+
+        verify(pool).warmup();
+    }
+
+    @Test
+    void shouldStartEvenWhenDatabaseIsUnreachable() {
+
+        when(pool.warmup()).thenReturn(Mono.error(new ConnectException("Connection refused")));
+
+        assertThatCode(() -> new ConnectionPoolWarmup(pool, new PoolProperties(true, Duration.ofSeconds(1), Duration.ofSeconds(1)))
+                .run(new DefaultApplicationArguments()))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldGiveUpOnSlowWarmupAfterTimeout() {
+
+        when(pool.warmup()).thenReturn(Mono.never());
+
+        assertThatCode(() -> new ConnectionPoolWarmup(pool, new PoolProperties(true, Duration.ofMillis(50), Duration.ofSeconds(1)))
+                .run(new DefaultApplicationArguments()))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.dto.BookMinimalDto;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.repository.BookJsonRows;
+import com.example.bookcatalog.repository.BookProjection;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaginatedBooksEncoderTest {
+
+    private static final ResolvableType PAGE_TYPE = ResolvableType.forClass(PaginatedBooks.class);
+
+    private final PaginatedBooksEncoder encoder =
+            new PaginatedBooksEncoder(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    void shouldWriteDirectPagesExactlyLikeTheirDtoEquivalent() {
+
+        List<BookMinimalDto> books = List.of(
+                new BookMinimalDto(1L, "Clean Code", "Robert Martin"),
+                new BookMinimalDto(2L, "Refactoring", "Martin Fowler"));
+
+        BookJsonRows rows = new BookJsonRows(BookProjection.MINIMAL, 2);
+        books.forEach(book -> rows.write(field -> switch (field) {
+            case ID -> book.getId();
+            case TITLE -> book.getTitle();
+            default -> book.getAuthor();
+        }));
+        rows.finish();
+
+        String direct = encode(new PaginatedBooks(9L, rows.json(), 0, rows.count(), "aWQ6Mg", true, true));
+        String viaDtos = encode(new PaginatedBooks(9L, books, 0, books.size(), "aWQ6Mg", true, true));
+
+        assertThat(direct).isEqualTo(viaDtos)
+                .startsWith("{\"total\":9,")
+                .endsWith("\"books\":[{\"id\":1,\"title\":\"Clean Code\",\"author\":\"Robert Martin\"},"
+                        + "{\"id\":2,\"title\":\"Refactoring\",\"author\":\"Martin Fowler\"}]}");
+    }
+
+    @Test
+    void shouldOnlyClaimJson() {
+
+        assertThat(encoder.canEncode(PAGE_TYPE, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(encoder.canEncode(PAGE_TYPE, MediaType.APPLICATION_XML)).isFalse();
+        assertThat(encoder.canEncode(ResolvableType.forClass(String.class), MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    private String encode(PaginatedBooks page) {
+        DataBuffer buffer = encoder.encodeValue(page, DefaultDataBufferFactory.sharedInstance, PAGE_TYPE,
+                MediaType.APPLICATION_JSON, Map.of());
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookcatalog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadReplicaConnectionFactoryTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstReplicaConnection = mock(Connection.class);
+    private final Connection secondReplicaConnection = mock(Connection.class);
+
+    private ReadReplicaConnectionFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory primary = mock(ConnectionFactory.class);
+        ConnectionPool firstReplica = mock(ConnectionPool.class);
+        ConnectionPool secondReplica = mock(ConnectionPool.class);
+
+        when(primary.create()).thenAnswer(invocation -> Mono.just(primaryConnection));
+        when(firstReplica.create()).thenReturn(Mono.just(firstReplicaConnection));
+        when(secondReplica.create()).thenReturn(Mono.just(secondReplicaConnection));
+
+        factory = new ReadReplicaConnectionFactory(primary, List.of(firstReplica, secondReplica),
+                ReplicaProperties.Strategy.ROUND_ROBIN);
+    }
+
+    @Test
+    void shouldSendUnmarkedWorkToPrimary() {
+
+        StepVerifier.create(factory.create())
+                .expectNext(primaryConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRoundRobinReadOnlyWorkOverReplicas() {
+
+        DatabaseRouting routing = new DatabaseRouting(Duration.ofSeconds(5));
+
+        StepVerifier.create(Mono.from(factory.create()).contextWrite(routing::readOnly))
+                .expectNext(firstReplicaConnection)
+                .verifyComplete();
+        StepVerifier.create(Mono.from(factory.create()).contextWrite(routing::readOnly))
+                .expectNext(secondReplicaConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldKeepPinnedReadsOnPrimary() {
+
+        DatabaseRouting routing = new DatabaseRouting(Duration.ofSeconds(5));
+
+        StepVerifier.create(Mono.from(factory.create())
+                        .contextWrite(routing::readOnly)
+                        .contextWrite(DatabaseRouting::pinPrimary))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldKeepReadsOnPrimaryRightAfterLocalWrite() {
+
+        DatabaseRouting routing = new DatabaseRouting(Duration.ofMinutes(1));
+        routing.recordWrite();
+
+        StepVerifier.create(Mono.from(factory.create()).contextWrite(routing::readOnly))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bookcatalog.config;
+
+import com.example.bookcatalog.controllers.BookController;
+import com.example.bookcatalog.services.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@WebFluxTest(BookController.class)
+@EnableConfigurationProperties({AccessLogProperties.class, PoolProperties.class})
+class StaticResourceConfigTest {
+
+    private static final Pattern SCRIPT = Pattern.compile("<script src=\"(app-[0-9a-f]{32}\\.js)\"></script>");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private BookService bookService;
+
+    @Test
+    void shouldServeIndexWithHashedLinksAndNoCache() {
+
+        String html = webTestClient.get()
+                .uri("/")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.noCache())
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(html).containsPattern("<link rel=\"stylesheet\" href=\"styles-[0-9a-f]{32}\\.css\">");
+        assertThat(html).containsPattern(SCRIPT);
+    }
+
+    @Test
+    void shouldServeHashedAssetsPrecompressedForAYear() {
+
+        String html = webTestClient.get().uri("/index.html")
+                .exchange()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        Matcher script = SCRIPT.matcher(html);
+        assertThat(script.find()).isTrue();
+
+        webTestClient.get()
+                .uri("/" + script.group(1))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public");
+    }
+}
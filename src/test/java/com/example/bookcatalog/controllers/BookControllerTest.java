@@ -1,40 +1,80 @@
 package com.example.bookcatalog.controllers;
 
+import com.example.bookcatalog.config.AccessLogProperties;
+import com.example.bookcatalog.config.BookProtobufEncoder;
+import com.example.bookcatalog.config.BookProtobufReader;
+import com.example.bookcatalog.config.PoolProperties;
 import com.example.bookcatalog.dto.BookDto;
 import com.example.bookcatalog.dto.BookFullDto;
-import com.example.bookcatalog.dto.response.PageResponse;
+import com.example.bookcatalog.dto.response.BatchItemResult;
+import com.example.bookcatalog.dto.response.BatchWriteResult;
+import com.example.bookcatalog.dto.response.Versioned;
 import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.dto.response.RawJson;
 import com.example.bookcatalog.exception.BookNotFoundException;
+import com.example.bookcatalog.exception.PreconditionFailedException;
 import com.example.bookcatalog.exception.GlobalExceptionHandler;
+import com.example.bookcatalog.model.CatalogChange;
 import com.example.bookcatalog.services.BookService;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(BookController.class)
+@EnableConfigurationProperties({AccessLogProperties.class, PoolProperties.class})
 @Import(GlobalExceptionHandler.class)
 class BookControllerTest {
 
+    private static final Instant MODIFIED = Instant.parse("2024-05-01T10:15:30Z");
+    private static final CatalogChange CHANGE = new CatalogChange(7L, 3L, MODIFIED);
+
     @Autowired
     private WebTestClient webTestClient;
 
     @MockitoBean
     private BookService bookService;
 
+    @BeforeEach
+    void stubCatalogChange() {
+        when(bookService.lastChange())
+                .thenReturn(Mono.just(CHANGE));
+    }
+
     // =============================
     // POST
     // =============================
@@ -72,6 +112,19 @@ class BookControllerTest {
                 .expectStatus().isEqualTo(HttpStatus.CONFLICT);
     }
 
+    @Test
+    void shouldReturn503WithRetryAfterWhenNoConnectionCanBeAcquired() {
+
+        when(bookService.getById(eq(1L), any()))
+                .thenReturn(Mono.error(new DataAccessResourceFailureException("Failed to obtain R2DBC Connection")));
+
+        webTestClient.get()
+                .uri("/books/1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+    }
+
     @Test
     void shouldReturn400WhenInvalidRequest() {
 
@@ -116,16 +169,25 @@ class BookControllerTest {
 
                 PaginatedBooks page = new PaginatedBooks(
                 1L,
-                List.of(dto)
+                List.of(dto),
+                0,
+                1,
+                null,
+                false,
+                false
         );
         when(bookService.getAll(
                 anyInt(),
                 anyInt(),
+                any(),
                 anyString(),
                 anyString(),
                 any(),
                 any(),
-                eq("full")
+                eq("full"),
+                any(),
+                eq("exact"),
+                any()
         )).thenReturn(Mono.just(page));
 
         webTestClient.get()
@@ -162,16 +224,34 @@ class BookControllerTest {
         );
 
         when(bookService.getById(1L, "full"))
-                .thenReturn(Mono.<Object>just(dto));
+                .thenReturn(Mono.just(new Versioned<>(dto, 3L, MODIFIED)));
 
         webTestClient.get()
                 .uri("/books/1")
                 .exchange()
                 .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectHeader().lastModified(MODIFIED.toEpochMilli())
                 .expectBody()
                 .jsonPath("$.id").isEqualTo(1);
     }
 
+    @Test
+    void shouldReturn304WhenIfNoneMatchesCurrentETag() {
+
+        BookFullDto dto = new BookFullDto(1L, "Title", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(bookService.getById(1L, "full"))
+                .thenReturn(Mono.just(new Versioned<>(dto, 3L, MODIFIED)));
+
+        webTestClient.get()
+                .uri("/books/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
     @Test
     void shouldReturn404WhenBookNotFound() {
 
@@ -194,8 +274,8 @@ class BookControllerTest {
         BookDto request = new BookDto(null,"Updated","Author",BigDecimal.TEN, LocalDate.now());
         BookDto response = new BookDto(1L,"Updated","Author",BigDecimal.TEN, LocalDate.now());
 
-        when(bookService.update(eq(1L), any()))
-                .thenReturn(Mono.just(response));
+        when(bookService.update(eq(1L), any(), isNull()))
+                .thenReturn(Mono.just(new Versioned<>(response, 1L, MODIFIED)));
 
         webTestClient.put()
                 .uri("/books/1")
@@ -203,14 +283,44 @@ class BookControllerTest {
                 .bodyValue(request)
                 .exchange()
                 .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
                 .expectBody()
                 .jsonPath("$.title").isEqualTo("Updated");
     }
 
+    @Test
+    void shouldPassIfMatchVersionToUpdate() {
+
+        BookDto request = new BookDto(null, "Updated", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(bookService.update(eq(1L), any(), eq(3L)))
+                .thenReturn(Mono.error(new PreconditionFailedException(1L)));
+
+        webTestClient.put()
+                .uri("/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void shouldRejectWeakIfMatchOnDelete() {
+
+        webTestClient.delete()
+                .uri("/books/1")
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        verify(bookService, never()).delete(any(), any());
+    }
+
     @Test
     void shouldReturn404WhenUpdatingNonExistingBook() {
 
-        when(bookService.update(eq(1L), any()))
+        when(bookService.update(eq(1L), any(), isNull()))
                 .thenReturn(Mono.error(new BookNotFoundException(1L)));
 
         webTestClient.put()
@@ -228,7 +338,7 @@ class BookControllerTest {
     @Test
     void shouldDeleteBook() {
 
-        when(bookService.delete(1L))
+        when(bookService.delete(1L, null))
                 .thenReturn(Mono.empty());
 
         webTestClient.delete()
@@ -240,7 +350,7 @@ class BookControllerTest {
     @Test
     void shouldReturn404WhenDeletingNonExistingBook() {
 
-        when(bookService.delete(1L))
+        when(bookService.delete(1L, null))
                 .thenReturn(Mono.error(new BookNotFoundException(1L)));
 
         webTestClient.delete()
@@ -261,7 +371,12 @@ class BookControllerTest {
 
         PaginatedBooks page = new PaginatedBooks(
                 1L,
-                List.of(dto)
+                List.of(dto),
+                0,
+                1,
+                null,
+                false,
+                false
         );
 
         when(bookService.getAll(
@@ -269,9 +384,13 @@ class BookControllerTest {
                 anyInt(),
                 any(),
                 any(),
+                any(),
                 eq(LocalDate.of(2024, 1, 1)),
                 isNull(),
-                eq("full")
+                eq("full"),
+                any(),
+                eq("exact"),
+                any()
         )).thenReturn(Mono.just(page));
 
         webTestClient.get()
@@ -294,9 +413,13 @@ class BookControllerTest {
                 anyInt(),
                 any(),
                 any(),
+                any(),
                 eq(LocalDate.of(2024, 2, 1)),
                 eq(LocalDate.of(2024, 1, 1)),
-                eq("full")
+                eq("full"),
+                any(),
+                eq("exact"),
+                any()
         )).thenReturn(Mono.error(
                 new IllegalArgumentException("publishDateFrom must be before publishDateTo")
         ));
@@ -322,4 +445,456 @@ class BookControllerTest {
                 .exchange()
                 .expectStatus().isBadRequest();
     }
-}
\ No newline at end of file
+    @Test
+    void shouldPassCursorAndReturnNextCursor() {
+
+        BookFullDto dto = new BookFullDto(3L, "Title", "Author", BigDecimal.TEN, LocalDate.now());
+        PaginatedBooks page = new PaginatedBooks(10L, List.of(dto), 0, 1, "next-token", true, false);
+
+        when(bookService.getAll(
+                anyInt(),
+                anyInt(),
+                any(),
+                any(),
+                any(),
+                any(),
+                any(),
+                eq("full"),
+                eq("some-token"),
+                eq("exact"),
+                any()
+        )).thenReturn(Mono.just(page));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/books")
+                        .queryParam("cursor", "some-token")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.books[0].id").isEqualTo(3)
+                .jsonPath("$.nextCursor").isEqualTo("next-token");
+    }
+
+    @Test
+    void shouldNotLogABadCursorAsAnError() {
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(),
+                eq("not-a-cursor"), any(), any()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Invalid cursor")));
+
+        Logger controllerLogger = (Logger) LoggerFactory.getLogger(BookController.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        controllerLogger.addAppender(appender);
+
+        try {
+            webTestClient.get()
+                    .uri("/books?cursor=not-a-cursor")
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        } finally {
+            controllerLogger.detachAppender(appender);
+        }
+
+        assertThat(appender.list).noneMatch(event -> event.getLevel() == Level.ERROR);
+    }
+
+    @Test
+    void shouldReturnPageMetadataAndLinkHeaders() {
+
+        BookFullDto dto = new BookFullDto(5L, "Java", "Author", BigDecimal.TEN, LocalDate.now());
+        PaginatedBooks page = new PaginatedBooks(10L, List.of(dto, dto), 2, 2, "aWQ6Ng", true, false);
+
+        when(bookService.getAll(eq(2), eq(2), any(), eq("Java"), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(page));
+
+        webTestClient.get()
+                .uri("/books?page=2&size=2&title=Java")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.LINK,
+                        "</books?size=2&title=Java&cursor=aWQ6Ng>; rel=\"next\", "
+                                + "</books?size=2&title=Java&page=1>; rel=\"prev\"")
+                .expectBody()
+                .jsonPath("$.page").isEqualTo(2)
+                .jsonPath("$.size").isEqualTo(2)
+                .jsonPath("$.totalPages").isEqualTo(5)
+                .jsonPath("$.hasNext").isEqualTo(true);
+    }
+
+    @Test
+    void shouldLinkSearchResultsByPageNumberAndOmitLinksOnLastPage() {
+
+        BookFullDto dto = new BookFullDto(5L, "Java", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(bookService.getAll(eq(0), anyInt(), eq("java"), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(null, List.of(dto), 0, 1, null, true, false)));
+        when(bookService.getAll(eq(0), anyInt(), eq("rust"), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(1L, List.of(dto), 0, 1, null, false, false)));
+
+        webTestClient.get()
+                .uri("/books?q=java&size=1&total=none")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.LINK, "</books?q=java&size=1&total=none&page=1>; rel=\"next\"")
+                .expectBody()
+                .jsonPath("$.totalPages").doesNotExist();
+
+        webTestClient.get()
+                .uri("/books?q=rust&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.LINK);
+    }
+
+    @Test
+    void shouldOmitTotalWhenNotRequested() {
+
+        BookFullDto dto = new BookFullDto(1L, "Title", "Author", BigDecimal.TEN, LocalDate.now());
+        PaginatedBooks page = new PaginatedBooks(null, List.of(dto), 0, 1, "next-token", true, false);
+
+        when(bookService.getAll(
+                anyInt(),
+                anyInt(),
+                any(),
+                any(),
+                any(),
+                any(),
+                any(),
+                eq("full"),
+                any(),
+                eq("none"),
+                any()
+        )).thenReturn(Mono.just(page));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/books")
+                        .queryParam("total", "none")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.total").doesNotExist()
+                .jsonPath("$.hasNext").isEqualTo(true);
+    }
+
+    @Test
+    void shouldSendPagesWrittenStraightToJson() {
+
+        byte[] books = "[{\"id\":7,\"title\":\"Title\",\"author\":\"Author\"}]".getBytes(StandardCharsets.UTF_8);
+        PaginatedBooks page = new PaginatedBooks(1L, new RawJson(books, books.length), 0, 1, null, false, false);
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(page));
+
+        webTestClient.get()
+                .uri("/books")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .json("{\"total\":1,\"totalPages\":1,\"page\":0,\"size\":1,\"hasNext\":false,\"books\":[{\"id\":7,\"title\":\"Title\",\"author\":\"Author\"}]}", JsonCompareMode.STRICT);
+    }
+
+    @Test
+    void shouldCreateBooksFromNdjsonStream() {
+
+        when(bookService.createAll(any()))
+                .thenReturn(Flux.just(
+                        BatchItemResult.created(0, 1L),
+                        BatchItemResult.invalid(1, List.of("title: must not be blank"))
+                ));
+
+        webTestClient.post()
+                .uri("/books/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"title":"A","author":"B","price":10,"publishDate":"2024-01-01"}
+                        {"title":"","author":"B","price":10,"publishDate":"2024-01-01"}
+                        """)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("CREATED")
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[1].status").isEqualTo("INVALID")
+                .jsonPath("$[1].id").doesNotExist();
+    }
+
+    @Test
+    void shouldStreamBooksAsNdjson() {
+
+        when(bookService.stream(any(), eq("java"), any(), any(), any()))
+                .thenReturn(Flux.just(
+                        new BookFullDto(1L, "Java 1", "Author", BigDecimal.TEN, LocalDate.of(2024, 1, 1)),
+                        new BookFullDto(2L, "Java 2", "Author", BigDecimal.TEN, LocalDate.of(2024, 1, 1))
+                ));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/books/stream")
+                        .queryParam("title", "java")
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(BookFullDto.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void shouldNegotiateCborForPages() throws Exception {
+
+        BookFullDto dto = new BookFullDto(1L, "Title", "Author", new BigDecimal("40.00"), LocalDate.of(2024, 1, 1));
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(1L, List.of(dto), 0, 1, null, false, false)));
+
+        byte[] body = webTestClient.get()
+                .uri("/books")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        JsonNode page = new CBORMapper().readTree(body);
+        assertEquals(1, page.get("total").asInt());
+        // Sent as a CBOR decimal fraction (tag 4), not as a string or a double
+        assertEquals(0, new BigDecimal("40.00").compareTo(page.get("books").get(0).get("price").decimalValue()));
+        assertEquals("2024-01-01", page.get("books").get(0).get("publishDate").asText());
+    }
+
+    @Test
+    void shouldStreamBooksAsOneCborArray() throws Exception {
+
+        when(bookService.stream(any(), any(), any(), any(), any()))
+                .thenReturn(Flux.just(
+                        new BookFullDto(1L, "Java 1", "Author", BigDecimal.TEN, LocalDate.of(2024, 1, 1)),
+                        new BookFullDto(2L, "Java 2", "Author", BigDecimal.TEN, LocalDate.of(2024, 1, 1))
+                ));
+
+        byte[] body = webTestClient.get()
+                .uri("/books/stream")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        JsonNode books = new CBORMapper().readTree(body);
+        assertEquals(2, books.size());
+        assertEquals("Java 2", books.get(1).get("title").asText());
+    }
+
+    @Test
+    void shouldNegotiateProtobufForPagesAndStreams() throws Exception {
+
+        BookFullDto dto = new BookFullDto(1L, "Title", "Author", new BigDecimal("40.00"), LocalDate.of(2024, 1, 1));
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(1L, List.of(dto), 0, 1, null, false, false)));
+        when(bookService.stream(any(), any(), any(), any(), any())).thenReturn(Flux.just(dto, dto));
+
+        byte[] page = webTestClient.get()
+                .uri("/books")
+                .accept(BookProtobufEncoder.APPLICATION_PROTOBUF)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BookProtobufEncoder.APPLICATION_PROTOBUF)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        byte[] stream = webTestClient.get()
+                .uri("/books/stream")
+                .accept(BookProtobufEncoder.APPLICATION_PROTOBUF)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(1L, BookProtobufReader.readPage(page).getTotal());
+        assertEquals(new BigDecimal("40.00"),
+                ((BookFullDto) BookProtobufReader.readPage(page).getBooks().get(0)).getPrice());
+        assertEquals(2, BookProtobufReader.readStream(stream).size());
+    }
+
+    @Test
+    void shouldPatchBooksInBatch() {
+
+        when(bookService.updateAll(any()))
+                .thenReturn(Mono.just(BatchWriteResult.ofIds(1, List.of(2L))));
+
+        webTestClient.patch()
+                .uri("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        [{"id":1,"price":12.5},{"id":2,"title":"Other"}]
+                        """)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.affected").isEqualTo(1)
+                .jsonPath("$.missing").isEqualTo(1)
+                .jsonPath("$.missingIds[0]").isEqualTo(2);
+    }
+
+    @Test
+    void shouldDeleteBooksByFilter() {
+
+        when(bookService.deleteAll(any()))
+                .thenReturn(Mono.just(BatchWriteResult.ofFilter(42)));
+
+        webTestClient.method(HttpMethod.DELETE)
+                .uri("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"author":"Tolkien"}
+                        """)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.affected").isEqualTo(42)
+                .jsonPath("$.missing").doesNotExist();
+    }
+
+    @Test
+    void shouldRejectBatchDeleteWithoutSelection() {
+
+        when(bookService.deleteAll(any()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Provide either ids or at least one filter")));
+
+        webTestClient.method(HttpMethod.DELETE)
+                .uri("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldTagListingWithCatalogChange() {
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(0L, List.of(), 0, 5, null, false, false).at(CHANGE)));
+
+        webTestClient.get()
+                .uri("/books")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c7.3-json-full\"")
+                .expectHeader().lastModified(MODIFIED.toEpochMilli());
+
+        // The marker cached with the page is enough, an unconditional request never reads it again
+        verify(bookService, never()).lastChange();
+    }
+
+    @Test
+    void shouldAnswerUnchangedListingWithoutRunningPageQuery() {
+
+        webTestClient.get()
+                .uri("/books?page=3")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c7.3-json-full\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().isEmpty();
+
+        webTestClient.get()
+                .uri("/books")
+                .ifModifiedSince(MODIFIED.atZone(ZoneOffset.UTC))
+                .exchange()
+                .expectStatus().isNotModified();
+
+        verify(bookService, never()).getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldServeListingWhenTagIsStale() {
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(0L, List.of(), 0, 5, null, false, false).at(CHANGE)));
+
+        // Same sequence, but a writer that started earlier has committed since
+        webTestClient.get()
+                .uri("/books")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c7.2-json-full\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c7.3-json-full\"");
+    }
+
+    @Test
+    void shouldTagListingWithTheFormatItIsWrittenIn() {
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(0L, List.of(), 0, 5, null, false, false).at(CHANGE)));
+
+        for (String accept : List.of("application/cbor;q=0.5, application/json", "*/*")) {
+
+            HttpHeaders headers = webTestClient.get()
+                    .uri("/books")
+                    .header(HttpHeaders.ACCEPT, accept)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                    .returnResult(byte[].class)
+                    .getResponseHeaders();
+
+            assertEquals("\"c7.3-" + headers.getContentType().getSubtype() + "-full\"", headers.getETag(), accept);
+        }
+
+        // The 304 is decided on the same tag
+        webTestClient.get()
+                .uri("/books")
+                .header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c7.3-json-full\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void shouldTagEachListingRepresentationSeparately() {
+
+        when(bookService.getAll(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(new PaginatedBooks(0L, List.of(), 0, 5, null, false, false).at(CHANGE)));
+
+        webTestClient.get()
+                .uri("/books")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c7.3-cbor-full\"");
+
+        webTestClient.get()
+                .uri("/books?dto=minimal")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c7.3-json-minimal\"");
+
+        webTestClient.get()
+                .uri("/books?fields=price,title")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c7.3-json-id,title,price\"");
+
+        // The JSON tag does not validate the CBOR body
+        webTestClient.get()
+                .uri("/books")
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c7.3-json-full\"")
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
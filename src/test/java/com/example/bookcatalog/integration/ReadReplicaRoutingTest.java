@@ -0,0 +1,132 @@
+package com.example.bookcatalog.integration;
+
+import com.example.bookcatalog.dto.BookDto;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Routing against two independent Postgres containers standing in for a
+ * primary and its replica. They are not replicated on purpose: a row that
+ * exists on only one of them shows which database served a request.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "bookcatalog.cache.books.enabled=false",
+        "bookcatalog.cache.pages.enabled=false",
+        "bookcatalog.replicas.primary-after-write=2s"
+})
+@AutoConfigureWebTestClient
+class ReadReplicaRoutingTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:17");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> r2dbcUrl(primary));
+        registry.add("spring.r2dbc.username", primary::getUsername);
+        registry.add("spring.r2dbc.password", primary::getPassword);
+        registry.add("spring.flyway.url", primary::getJdbcUrl);
+        registry.add("spring.flyway.user", primary::getUsername);
+        registry.add("spring.flyway.password", primary::getPassword);
+        registry.add("bookcatalog.replicas.urls", () -> r2dbcUrl(replica));
+        registry.add("bookcatalog.replicas.username", replica::getUsername);
+        registry.add("bookcatalog.replicas.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void replicaSchemaAndRow() {
+
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        DatabaseClient.create(ConnectionFactories.get(ConnectionFactoryOptions.parse(r2dbcUrl(replica)).mutate()
+                        .option(ConnectionFactoryOptions.USER, replica.getUsername())
+                        .option(ConnectionFactoryOptions.PASSWORD, replica.getPassword())
+                        .build()))
+                .sql("INSERT INTO book (id, title, author, price, publish_date) OVERRIDING SYSTEM VALUE "
+                        + "VALUES (900001, 'Only on replica', 'Replica', 10, DATE '2024-01-01')")
+                .then()
+                .block(Duration.ofSeconds(30));
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void shouldReadFromReplicaAndPinWritersToPrimary() {
+
+        // Reads go to the replica
+        webTestClient.get()
+                .uri("/books/900001")
+                .exchange()
+                .expectStatus().isOk();
+
+        // Writes go to the primary and pin the writer there
+        BookDto created = Objects.requireNonNull(webTestClient.post()
+                .uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookDto(null, "Only on primary", "Primary", BigDecimal.TEN, LocalDate.now()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectCookie().exists("bookcatalog-primary")
+                .expectBody(BookDto.class)
+                .returnResult()
+                .getResponseBody());
+
+        // Wait out this instance's own write window, so that from here on only the cookie
+        // can route a read to the primary
+        await(Duration.ofSeconds(3));
+
+        // Without the cookie the read goes to the replica, which never saw the row
+        webTestClient.get()
+                .uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // The same read carrying the cookie is served by the primary
+        webTestClient.get()
+                .uri("/books/{id}", created.getId())
+                .cookie("bookcatalog-primary", "1")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private static String r2dbcUrl(PostgreSQLContainer<?> container) {
+        return "r2dbc:postgresql://" + container.getHost() + ":" + container.getFirstMappedPort() + "/"
+                + container.getDatabaseName();
+    }
+
+    private static void await(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
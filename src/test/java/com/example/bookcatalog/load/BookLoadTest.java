@@ -0,0 +1,87 @@
+package com.example.bookcatalog.load;
+
+import com.example.bookcatalog.integration.PostgresContainerConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mixed read/write load against a real Netty server and a seeded Postgres 17.
+ * <p>
+ * Excluded from the normal build; run it with {@code ./mvnw -Pload test}. Tunables
+ * (system properties): {@code load.books} rows to seed (default 1,000,000),
+ * {@code load.concurrency} in-flight requests (64), {@code load.warmup} and
+ * {@code load.duration} as ISO-8601 durations (PT15S / PT60S), and {@code load.caches}
+ * to turn the book and page caches on (off by default, so the numbers are a baseline
+ * of the database path).
+ * <p>
+ * Prints p50/p99/p99.9 latency and throughput per endpoint and writes the same
+ * numbers to {@code target/load-report.json}.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                // Per-request application logging would dominate the measurement
+                "logging.level.com.example.bookcatalog=WARN",
+                "logging.level.com.example.bookcatalog.load=INFO",
+                // Baseline: every request reaches the database unless asked otherwise
+                "bookcatalog.cache.books.enabled=${load.caches:false}",
+                "bookcatalog.cache.pages.enabled=${load.caches:false}"
+        }
+)
+@ActiveProfiles("test")
+class BookLoadTest extends PostgresContainerConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BookLoadTest.class);
+
+    private static final long BOOKS = Long.getLong("load.books", 1_000_000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT15S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT60S"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeAll
+    static void announce() {
+        log.info("Load test: {} books, concurrency {}, warm-up {}, measured {}, caches {}", BOOKS, CONCURRENCY,
+                WARMUP, DURATION, Boolean.getBoolean("load.caches") ? "on" : "off");
+    }
+
+    @Test
+    void mixedReadWriteTraffic() throws IOException {
+
+        LoadHarness.seed(databaseClient, BOOKS);
+
+        Map<String, LatencyRecorder.Summary> summaries = LoadHarness.measure(
+                LoadHarness.client(port, CONCURRENCY), BOOKS, CONCURRENCY, WARMUP, DURATION);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("books", BOOKS);
+        settings.put("concurrency", CONCURRENCY);
+        settings.put("caches", Boolean.getBoolean("load.caches"));
+        LoadHarness.report("load-report.json", settings, summaries);
+
+        assertThat(summaries.values().stream().mapToLong(LatencyRecorder.Summary::count).sum()).isPositive();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bookcatalog.load;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects raw response times per endpoint and turns them into percentile rows.
+ * <p>
+ * Every sample is kept (8 bytes each) so p99.9 is exact rather than bucketed;
+ * that is fine for runs of a few million requests.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Samples> byEndpoint = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        Samples samples = byEndpoint.computeIfAbsent(endpoint, e -> new Samples());
+        samples.add(nanos);
+        if (!ok) {
+            samples.errors.incrementAndGet();
+        }
+    }
+
+    Map<String, Summary> summarize(double seconds) {
+
+        Map<String, Summary> summaries = new TreeMap<>();
+        byEndpoint.forEach((endpoint, samples) -> summaries.put(endpoint, samples.summarize(seconds)));
+        return summaries;
+    }
+
+    record Summary(long count, long errors, double throughput, double p50Ms, double p99Ms, double p999Ms,
+                   double maxMs) {
+
+        String toJson(String endpoint) {
+            return String.format(Locale.ROOT,
+                    "{\"endpoint\":\"%s\",\"count\":%d,\"errors\":%d,\"throughput\":%.1f,"
+                            + "\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+                    endpoint, count, errors, throughput, p50Ms, p99Ms, p999Ms, maxMs);
+        }
+
+        String toRow(String endpoint) {
+            return String.format(Locale.ROOT, "%-28s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                    endpoint, count, errors, throughput, p50Ms, p99Ms, p999Ms, maxMs);
+        }
+    }
+
+    static String header() {
+        return String.format(Locale.ROOT, "%-28s %9s %7s %10s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    private static final class Samples {
+
+        private final AtomicLong errors = new AtomicLong();
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        synchronized void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        synchronized Summary summarize(double seconds) {
+
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+
+            return new Summary(size, errors.get(), size / seconds,
+                    millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)),
+                    millis(size == 0 ? 0 : sorted[size - 1]));
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.bookcatalog.load;
+
+import com.example.bookcatalog.services.BookCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * What the load tests share: seeding, the mixed request stream, the closed-loop
+ * driver and the report. Each test only decides what application it runs against.
+ */
+final class LoadHarness {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+
+    private LoadHarness() {
+    }
+
+    static void seed(DatabaseClient databaseClient, long books) {
+
+        // Set-based seeding: one statement, no per-row round-trips
+        databaseClient.sql("""
+                        INSERT INTO book (title, author, price, publish_date)
+                        SELECT 'Load book ' || g,
+                               'Author ' || (g % 5000),
+                               ((g % 9000) + 100) / 100.0,
+                               DATE '1990-01-01' + (g % 12000)::int
+                        FROM generate_series(1, :n) AS g
+                        """)
+                .bind("n", books)
+                .then()
+                .then(databaseClient.sql("ANALYZE book").then())
+                .block(Duration.ofMinutes(30));
+    }
+
+    static WebClient client(int port, int concurrency) {
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(
+                        ConnectionProvider.builder("load").maxConnections(concurrency).build())))
+                .build();
+    }
+
+    /**
+     * Runs the mixed traffic for {@code warmup} without recording it, then for
+     * {@code duration}, and returns the measured run per endpoint.
+     */
+    static Map<String, LatencyRecorder.Summary> measure(WebClient client, long books, int concurrency,
+                                                        Duration warmup, Duration duration) {
+
+        run(client, new LatencyRecorder(), books, concurrency, warmup);
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        long started = System.nanoTime();
+        run(client, recorder, books, concurrency, duration);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        return recorder.summarize(seconds);
+    }
+
+    /**
+     * Logs the table and writes {@code target/<file>}: the run's settings followed by
+     * one entry per row.
+     */
+    static void report(String file, Map<String, ?> settings, Map<String, LatencyRecorder.Summary> summaries)
+            throws IOException {
+
+        StringBuilder table = new StringBuilder("\n").append(LatencyRecorder.header()).append('\n');
+        summaries.forEach((endpoint, summary) -> table.append(summary.toRow(endpoint)).append('\n'));
+        log.info(table.toString());
+
+        String header = settings.entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\": " + e.getValue() + ",\n")
+                .collect(Collectors.joining("", "{\n", "\"endpoints\": [\n  "));
+
+        String json = summaries.entrySet().stream()
+                .map(e -> e.getValue().toJson(e.getKey()))
+                .collect(Collectors.joining(",\n  ", header, "\n]}\n"));
+
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", file), json);
+    }
+
+    private static void run(WebClient client, LatencyRecorder recorder, long books, int concurrency,
+                            Duration duration) {
+        Flux.range(0, Integer.MAX_VALUE)
+                .flatMap(i -> oneRequest(client, recorder, books), concurrency)
+                .take(duration)
+                .blockLast(duration.plusMinutes(1));
+    }
+
+    // 50% by id, 20% page, 10% keyset page, 10% search, 7% update, 3% create
+    private static Mono<Void> oneRequest(WebClient client, LatencyRecorder recorder, long books) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        long id = 1 + random.nextLong(books);
+
+        if (roll < 50) {
+            return timed(recorder, "GET /books/{id}", client.get().uri("/books/{id}", id));
+        }
+        if (roll < 70) {
+            return timed(recorder, "GET /books", client.get()
+                    .uri("/books?page={page}&size=20", random.nextInt(500)));
+        }
+        if (roll < 80) {
+            return timed(recorder, "GET /books?cursor", client.get()
+                    .uri("/books?size=20&total=none&cursor={cursor}", BookCursor.after(id).encode()));
+        }
+        if (roll < 90) {
+            return timed(recorder, "GET /books?q", client.get()
+                    .uri("/books?q={q}&size=20&total=estimate", "book " + random.nextInt(1000)));
+        }
+        if (roll < 97) {
+            return timed(recorder, "PUT /books/{id}", client.put()
+                    .uri("/books/{id}", id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(book("Load book " + id, id)));
+        }
+        return timed(recorder, "POST /books", client.post()
+                .uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book("Load new " + UUID.randomUUID(), id)));
+    }
+
+    private static Mono<Void> timed(LatencyRecorder recorder, String endpoint,
+                                    WebClient.RequestHeadersSpec<?> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                    .onErrorReturn(HttpStatusCode.valueOf(599))
+                    .doOnNext(status -> recorder.record(endpoint, System.nanoTime() - start,
+                            status.is2xxSuccessful()))
+                    .then();
+        });
+    }
+
+    private static Map<String, Object> book(String title, long seed) {
+        return Map.of(
+                "title", title,
+                "author", "Author " + (seed % 5000),
+                "price", 19.99,
+                "publishDate", "2020-01-01"
+        );
+    }
+}
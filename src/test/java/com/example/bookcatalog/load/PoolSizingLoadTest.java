@@ -0,0 +1,112 @@
+package com.example.bookcatalog.load;
+
+import com.example.bookcatalog.BookcatalogApplication;
+import com.example.bookcatalog.integration.PostgresContainerConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The tuned R2DBC pool against the one the application ran with before: Spring
+ * Boot's {@code spring.r2dbc.pool.*} defaults and no warm-up.
+ * <p>
+ * Each profile boots the whole application on a random port against the same
+ * seeded Postgres and gets the same mixed traffic as {@link BookLoadTest}, with
+ * the caches off so every request needs a connection. Excluded from the normal
+ * build; run it with {@code ./mvnw -Pload test -Dtest=PoolSizingLoadTest}.
+ * Tunables (system properties): {@code load.books} (default 200,000),
+ * {@code load.concurrency} (128), {@code load.warmup} and {@code load.duration}
+ * per profile (PT10S / PT30S).
+ * <p>
+ * Writes the results to {@code target/pool-sizing-report.json}.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class PoolSizingLoadTest extends PostgresContainerConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolSizingLoadTest.class);
+
+    private static final long BOOKS = Long.getLong("load.books", 200_000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 128);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+
+    private static final List<String> COMMON = List.of(
+            "--spring.profiles.active=test",
+            "--server.port=0",
+            "--management.server.port=-1",
+            "--bookcatalog.cache.books.enabled=false",
+            "--bookcatalog.cache.pages.enabled=false",
+            // Per-request application logging would dominate the measurement
+            "--logging.level.com.example.bookcatalog=WARN",
+            "--logging.level.com.example.bookcatalog.load=INFO"
+    );
+
+    // What Spring Boot uses when nothing is set; an empty duration means "no limit"
+    private static final List<String> BOOT_DEFAULTS = List.of(
+            "--spring.r2dbc.pool.initial-size=10",
+            "--spring.r2dbc.pool.min-idle=0",
+            "--spring.r2dbc.pool.max-size=10",
+            "--spring.r2dbc.pool.max-idle-time=30m",
+            "--spring.r2dbc.pool.max-life-time=",
+            "--spring.r2dbc.pool.max-validation-time=",
+            "--spring.r2dbc.pool.max-acquire-time=",
+            "--spring.r2dbc.pool.max-create-connection-time=",
+            "--bookcatalog.pool.warmup=false"
+    );
+
+    // application.properties as shipped
+    private static final List<String> TUNED = List.of();
+
+    @Test
+    void tunedPoolAgainstBootDefaults() throws IOException {
+
+        log.info("Pool profiles: {} books, concurrency {}, warm-up {}, measured {} each", BOOKS, CONCURRENCY,
+                WARMUP, DURATION);
+
+        Map<String, LatencyRecorder.Summary> results = new LinkedHashMap<>();
+        measure("defaults", BOOT_DEFAULTS, true, results);
+        measure("tuned", TUNED, false, results);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("books", BOOKS);
+        settings.put("concurrency", CONCURRENCY);
+        LoadHarness.report("pool-sizing-report.json", settings, results);
+
+        assertThat(results.values()).allSatisfy(summary -> assertThat(summary.count()).isPositive());
+    }
+
+    private static void measure(String profile, List<String> pool, boolean seed,
+                                Map<String, LatencyRecorder.Summary> results) {
+
+        String[] args = Stream.concat(COMMON.stream(), pool.stream()).toArray(String[]::new);
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(BookcatalogApplication.class)
+                .run(args)) {
+
+            if (seed) {
+                LoadHarness.seed(app.getBean(DatabaseClient.class), BOOKS);
+            }
+
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+
+            LoadHarness.measure(LoadHarness.client(port, CONCURRENCY), BOOKS, CONCURRENCY, WARMUP, DURATION)
+                    .forEach((endpoint, summary) -> results.put(profile + " " + endpoint, summary));
+        }
+    }
+}
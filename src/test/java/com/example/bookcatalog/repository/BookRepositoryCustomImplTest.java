@@ -0,0 +1,132 @@
+package com.example.bookcatalog.repository;
+
+import com.example.bookcatalog.dto.BookFullDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookRepositoryCustomImplTest {
+
+    @Test
+    void shouldOmitWhereClauseWithoutFilters() {
+
+        assertEquals("", BookRepositoryCustomImpl.Where.of(BookFilter.none()).toString());
+    }
+
+    @Test
+    void shouldOnlyIncludePresentPredicates() {
+
+        BookFilter filter = new BookFilter(null, "java", null, LocalDate.of(2024, 1, 1), null);
+
+        assertEquals(
+                " WHERE title ILIKE '%' || :title || '%' AND publish_date >= :from",
+                BookRepositoryCustomImpl.Where.of(filter).toString()
+        );
+    }
+
+    @Test
+    void shouldTreatBlankTextFiltersAsAbsent() {
+
+        BookFilter filter = new BookFilter(" ", "", null, null, null);
+
+        assertEquals(BookFilter.none(), filter);
+        assertEquals("", BookRepositoryCustomImpl.Where.of(filter).toString());
+    }
+
+    @Test
+    void shouldSelectOnlyProjectedColumns() {
+
+        assertEquals("id, title, author", BookProjection.MINIMAL.selectList());
+        assertEquals("id, price, publish_date",
+                BookProjection.resolve("minimal", "publishDate, price").selectList());
+    }
+
+    @Test
+    void shouldMapFieldsProjectionInDeclarationOrder() {
+
+        BookProjection<Map<String, Object>> projection = BookProjection.of(BookField.parse("price,title"));
+
+        Map<String, Object> book = projection.map(field -> switch (field) {
+            case ID -> 7L;
+            case TITLE -> "Clean Code";
+            case PRICE -> BigDecimal.TEN;
+            default -> throw new AssertionError("Not selected: " + field);
+        });
+
+        assertEquals(List.of("id", "title", "price"), List.copyOf(book.keySet()));
+        assertEquals(7L, projection.idOf(book));
+    }
+
+    @Test
+    void shouldWriteRowsAsTheSameJsonJacksonProducesForTheProjection() throws Exception {
+
+        // Configured like Spring Boot's ObjectMapper: JSR-310 module, dates as ISO strings
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        BookFullDto first = new BookFullDto(1L, "Clean \"Code\"", "Robert Martin", new BigDecimal("40.00"),
+                LocalDate.of(2008, 8, 1));
+        BookFullDto second = new BookFullDto(2L, "Refactoring", null, BigDecimal.TEN, null);
+
+        BookJsonRows full = new BookJsonRows(BookProjection.FULL, 10);
+        BookJsonRows fields = new BookJsonRows(BookProjection.of(BookField.parse("price")), 10);
+        for (BookFullDto book : List.of(first, second)) {
+            full.write(field -> read(book, field));
+            fields.write(field -> read(book, field));
+        }
+
+        assertEquals(mapper.writeValueAsString(List.of(first, second)), full.finish().json().toString());
+        assertEquals("[{\"id\":1,\"price\":40.00},{\"id\":2,\"price\":10}]", fields.finish().json().toString());
+        assertEquals(2L, full.lastId());
+    }
+
+    @Test
+    void shouldCountButNotWriteTheLookAheadRow() {
+
+        BookJsonRows rows = new BookJsonRows(BookProjection.of(BookField.parse("id")), 2);
+        for (long id = 1; id <= 3; id++) {
+            long current = id;
+            rows.write(field -> current);
+        }
+
+        assertEquals("[{\"id\":1},{\"id\":2}]", rows.finish().json().toString());
+        assertEquals(2, rows.count());
+        assertEquals(2L, rows.lastId());
+        assertTrue(rows.hasMore());
+        assertFalse(new BookJsonRows(BookProjection.MINIMAL, 2).finish().hasMore());
+    }
+
+    private static Object read(BookFullDto book, BookField field) {
+        return switch (field) {
+            case ID -> book.getId();
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case PRICE -> book.getPrice();
+            case PUBLISH_DATE -> book.getPublishDate();
+        };
+    }
+
+    @Test
+    void shouldRejectUnknownFields() {
+
+        assertThrows(IllegalArgumentException.class, () -> BookField.parse("title,isbn"));
+    }
+
+    @Test
+    void shouldParseRowEstimateFromExplainOutput() {
+
+        assertEquals(1234L, BookRepositoryCustomImpl.parsePlanRows(
+                "Bitmap Heap Scan on book  (cost=12.01..345.67 rows=1234 width=4)"));
+    }
+}
@@ -1,34 +1,75 @@
 package com.example.bookcatalog.services;
 
+import com.example.bookcatalog.config.BatchProperties;
+import com.example.bookcatalog.config.DatabaseRouting;
+import com.example.bookcatalog.config.ListingProperties;
+import com.example.bookcatalog.dto.BookBatchDeleteDto;
 import com.example.bookcatalog.dto.BookDto;
+import com.example.bookcatalog.dto.BookPatchDto;
+import com.example.bookcatalog.dto.response.BatchItemResult;
+import com.example.bookcatalog.dto.response.BatchWriteResult;
 import com.example.bookcatalog.dto.BookFullDto;
 import com.example.bookcatalog.exception.BookNotFoundException;
+import com.example.bookcatalog.exception.PreconditionFailedException;
+import com.example.bookcatalog.mapper.BookMapper;
 import com.example.bookcatalog.model.Book;
+import com.example.bookcatalog.model.CatalogChange;
+import com.example.bookcatalog.repository.BookField;
+import com.example.bookcatalog.dto.response.PaginatedBooks;
+import com.example.bookcatalog.repository.BookFilter;
+import com.example.bookcatalog.repository.BookJsonRows;
+import com.example.bookcatalog.repository.BookProjection;
 import com.example.bookcatalog.repository.BookRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class BookServiceImplTest {
 
+    private static final CatalogChange CHANGE = new CatalogChange(41L, 1L, Instant.parse("2024-05-01T10:15:30Z"));
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     private BookRepository repository;
     private BookServiceImpl service;
 
     @BeforeEach
     void setUp() {
         repository = Mockito.mock(BookRepository.class);
-        service = new BookServiceImpl(repository);
+        when(repository.findLastChange()).thenReturn(Mono.just(CHANGE));
+        service = new BookServiceImpl(repository,
+                Optional.of(Caffeine.newBuilder().buildAsync()),
+                Optional.of(Caffeine.newBuilder().buildAsync()),
+                validator,
+                new BatchProperties(2),
+                new ListingProperties(false, 100, Duration.ofMinutes(1)),
+                new DatabaseRouting(Duration.ZERO));
     }
 
     @Test
@@ -45,15 +86,31 @@ class BookServiceImplTest {
         verify(repository, times(1)).save(any(Book.class));
     }
 
+    @Test
+    void testCreateIgnoresClientSuppliedId() {
+        BookDto dto = service.toDto(new Book(42L, "Title 1", "Author 1", BigDecimal.valueOf(20)));
+
+        when(repository.save(any(Book.class))).thenAnswer(invocation -> {
+            Book saved = invocation.getArgument(0);
+            return Mono.just(new Book(7L, saved.getTitle(), saved.getAuthor(), saved.getPrice()));
+        });
+
+        StepVerifier.create(service.create(dto))
+                .expectNextMatches(b -> b.getId() == 7L)
+                .verifyComplete();
+
+        verify(repository).save(argThat(book -> book.getId() == null));
+    }
+
     @Test
     void testGetById() {
-        Book book = new Book(1L, "Title 1", "Author 1", BigDecimal.valueOf(20));
+        Book book = stored(new Book(1L, "Title 1", "Author 1", BigDecimal.valueOf(20)));
         when(repository.findById(1L)).thenReturn(Mono.just(book));
 
         StepVerifier.create(service.getById(1L, "full"))
                 .expectNextMatches(b -> {
-                    BookFullDto dto = (BookFullDto) b;
-                    return dto.getTitle().equals("Title 1");
+                    BookFullDto dto = (BookFullDto) b.body();
+                    return dto.getTitle().equals("Title 1") && b.version() == 0L;
                 })
                 .verifyComplete();
 
@@ -63,8 +120,7 @@ class BookServiceImplTest {
     @Test
     void testUpdateBook() {
 
-        Book existing = new Book(1L, "Old Title", "Old Author", BigDecimal.valueOf(15));
-        Book updatedEntity = new Book(1L, "New Title", "New Author", BigDecimal.valueOf(25));
+        Book updatedEntity = stored(new Book(1L, "New Title", "New Author", BigDecimal.valueOf(25)));
 
         BookDto updatedDto = new BookDto(
                 1L,
@@ -74,42 +130,40 @@ class BookServiceImplTest {
                 LocalDate.now()
         );
 
-        when(repository.findById(1L)).thenReturn(Mono.just(existing));
-        when(repository.save(any(Book.class))).thenReturn(Mono.just(updatedEntity));
+        when(repository.updateReturning(any(Book.class))).thenReturn(Mono.just(updatedEntity));
 
-        StepVerifier.create(service.update(1L, updatedDto))
+        StepVerifier.create(service.update(1L, updatedDto, null))
                 .expectNextMatches(dto ->
-                        dto.getTitle().equals("New Title") &&
-                                dto.getPrice().equals(BigDecimal.valueOf(25))
+                        dto.body().getTitle().equals("New Title") &&
+                                dto.body().getPrice().equals(BigDecimal.valueOf(25))
                 )
                 .verifyComplete();
 
-        verify(repository).findById(1L);
-        verify(repository).save(any(Book.class));
+        verify(repository).updateReturning(argThat(book -> book.getId() == 1L));
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).save(any(Book.class));
     }
 
     @Test
     void testDeleteBook() {
-        Book book = new Book(1L, "Title 1", "Author 1", BigDecimal.valueOf(20));
-        when(repository.findById(1L)).thenReturn(Mono.just(book));
-        when(repository.delete(book)).thenReturn(Mono.empty());
+        when(repository.deleteReturningId(1L, null)).thenReturn(Mono.just(1L));
 
-        StepVerifier.create(service.delete(1L))
+        StepVerifier.create(service.delete(1L, null))
                 .verifyComplete();
 
-        verify(repository, times(1)).findById(1L);
-        verify(repository, times(1)).delete(book);
+        verify(repository, times(1)).deleteReturningId(1L, null);
+        verify(repository, never()).findById(anyLong());
     }
 
     @Test
     void testGetAllPaginatedWithFilters() {
         Book book1 = new Book(1L, "Java Basics", "John Doe", BigDecimal.valueOf(20));
 
-        when(repository.countFiltered("Java", "John", null, null)).thenReturn(Mono.just(1L));
-        when(repository.findFiltered("Java", "John", null, null, PageRequest.of(0, 5)))
-                .thenReturn(Flux.just(book1));
+        when(repository.countFiltered(new BookFilter(null, "Java", "John", null, null))).thenReturn(Mono.just(1L));
+        when(repository.findFiltered(new BookFilter(null, "Java", "John", null, null), 0L, 5, BookProjection.FULL))
+                .thenReturn(full(book1));
 
-        StepVerifier.create(service.getAll(0, 5, "Java", "John", null, null, "full"))
+        StepVerifier.create(service.getAll(0, 5, null, "Java", "John", null, null, "full", null, null, null))
                 .expectNextMatches(paginated -> {
                     BookFullDto b1 = (BookFullDto) paginated.getBooks().get(0);
                    return paginated.getTotal() == 1 &&
@@ -118,8 +172,8 @@ class BookServiceImplTest {
                 })
                 .verifyComplete();
 
-        verify(repository, times(1)).countFiltered("Java", "John", null, null);
-        verify(repository, times(1)).findFiltered("Java", "John", null, null, PageRequest.of(0, 5));
+        verify(repository, times(1)).countFiltered(new BookFilter(null, "Java", "John", null, null));
+        verify(repository, times(1)).findFiltered(new BookFilter(null, "Java", "John", null, null), 0L, 5, BookProjection.FULL);
     }
 
     @Test
@@ -127,11 +181,11 @@ class BookServiceImplTest {
         Book book1 = new Book(1L, "Book1", "Author1", BigDecimal.valueOf(10));
         Book book2 = new Book(2L, "Book2", "Author2", BigDecimal.valueOf(15));
 
-        when(repository.countFiltered(null, null, null, null)).thenReturn(Mono.just(2L));
-        when(repository.findFiltered(null, null, null, null, PageRequest.of(0, 5)))
-                .thenReturn(Flux.just(book1, book2));
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(2L));
+        when(repository.findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL))
+                .thenReturn(full(book1, book2));
 
-        StepVerifier.create(service.getAll(0, 5, null, null, null, null, "full"))
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
                 .expectNextMatches(paginated ->{
 
                     BookFullDto b1 = (BookFullDto) paginated.getBooks().get(0);
@@ -144,8 +198,59 @@ class BookServiceImplTest {
                 })
                 .verifyComplete();
 
-        verify(repository, times(1)).countFiltered(null, null, null, null);
-        verify(repository, times(1)).findFiltered(null, null, null, null, PageRequest.of(0, 5));
+        verify(repository, times(1)).countFiltered(BookFilter.none());
+        verify(repository, times(1)).findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL);
+    }
+
+    @Test
+    void testCachedPageKeepsTheChangeMarkerItWasReadAt() {
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(0L));
+        when(repository.findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL)).thenReturn(full());
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextMatches(paginated -> CHANGE.equals(paginated.change()))
+                .verifyComplete();
+
+        when(repository.findLastChange())
+                .thenReturn(Mono.just(new CatalogChange(42L, 2L, Instant.parse("2024-05-02T10:15:30Z"))));
+
+        // Served from the page cache: the marker is the one read with the rows, and the newer one
+        // is not looked at until the check interval has passed
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextMatches(paginated -> CHANGE.equals(paginated.change()))
+                .verifyComplete();
+
+        // Once with the page, once for the shared check
+        verify(repository, times(2)).findLastChange();
+        verify(repository, times(1)).findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL);
+    }
+
+    @Test
+    void testCachedPageIsReloadedAfterAWriteElsewhere() {
+        BookServiceImpl checked = new BookServiceImpl(repository,
+                Optional.empty(),
+                Optional.of(Caffeine.newBuilder().buildAsync()),
+                validator,
+                new BatchProperties(2),
+                new ListingProperties(false, 100, Duration.ZERO),
+                new DatabaseRouting(Duration.ZERO));
+        CatalogChange later = new CatalogChange(41L, 2L, Instant.parse("2024-05-02T10:15:30Z"));
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(0L));
+        when(repository.findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL)).thenReturn(full());
+
+        StepVerifier.create(checked.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextMatches(paginated -> CHANGE.equals(paginated.change()))
+                .verifyComplete();
+
+        // Another instance committed a write, so this one never bumped its generation
+        when(repository.findLastChange()).thenReturn(Mono.just(later));
+
+        StepVerifier.create(checked.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextMatches(paginated -> later.equals(paginated.change()))
+                .verifyComplete();
+
+        verify(repository, times(2)).findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL);
     }
     @Test
     void testGetByIdNotFound() {
@@ -161,25 +266,24 @@ class BookServiceImplTest {
     void testUpdateBookNotFound() {
         BookDto updatedDto = new BookDto(1L, "New Title", "New Author", BigDecimal.valueOf(25), LocalDate.now());
 
-        when(repository.findById(1L)).thenReturn(Mono.empty());
+        when(repository.updateReturning(any(Book.class))).thenReturn(Mono.empty());
 
-        StepVerifier.create(service.update(1L, updatedDto))
+        StepVerifier.create(service.update(1L, updatedDto, null))
                 .expectError(BookNotFoundException.class)
                 .verify();
 
-        verify(repository, times(1)).findById(1L);
-        verify(repository, never()).save(any());
+        verify(repository, times(1)).updateReturning(any(Book.class));
+        verify(repository, never()).findById(anyLong());
     }
     @Test
     void testDeleteBookNotFound() {
-        when(repository.findById(1L)).thenReturn(Mono.empty());
+        when(repository.deleteReturningId(1L, null)).thenReturn(Mono.empty());
 
-        StepVerifier.create(service.delete(1L))
+        StepVerifier.create(service.delete(1L, null))
                 .expectError(BookNotFoundException.class)
                 .verify();
 
-        verify(repository, times(1)).findById(1L);
-        verify(repository, never()).delete(any());
+        verify(repository, times(1)).deleteReturningId(1L, null);
     }
     @Test
     void testCreateBookDatabaseError() {
@@ -203,21 +307,21 @@ class BookServiceImplTest {
 
         Book book = new Book(1L, "Java 2024", "Author", BigDecimal.TEN);
 
-        when(repository.countFiltered(null, null, from, to))
+        when(repository.countFiltered(new BookFilter(null, null, null, from, to)))
                 .thenReturn(Mono.just(1L));
 
-        when(repository.findFiltered(null, null, from, to, PageRequest.of(0, 5)))
-                .thenReturn(Flux.just(book));
+        when(repository.findFiltered(new BookFilter(null, null, null, from, to), 0L, 5, BookProjection.FULL))
+                .thenReturn(full(book));
 
-        StepVerifier.create(service.getAll(0, 5, null, null, from, to, "full"))
+        StepVerifier.create(service.getAll(0, 5, null, null, null, from, to, "full", null, null, null))
                 .expectNextMatches(p ->
                         p.getTotal() == 1 &&
                                 p.getBooks().size() == 1
                 )
                 .verifyComplete();
 
-        verify(repository).countFiltered(null, null, from, to);
-        verify(repository).findFiltered(null, null, from, to, PageRequest.of(0, 5));
+        verify(repository).countFiltered(new BookFilter(null, null, null, from, to));
+        verify(repository).findFiltered(new BookFilter(null, null, null, from, to), 0L, 5, BookProjection.FULL);
     }
     @Test
     void testGetAllFromAfterToShouldFail() {
@@ -225,11 +329,558 @@ class BookServiceImplTest {
         LocalDate from = LocalDate.of(2024, 2, 1);
         LocalDate to = LocalDate.of(2024, 1, 1);
 
-        StepVerifier.create(service.getAll(0, 5, null, null, from, to, "full"))
+        StepVerifier.create(service.getAll(0, 5, null, null, null, from, to, "full", null, null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(repository, never()).countFiltered(any());
+    }
+
+    @Test
+    void testGetAllWithCursorSeeksAfterLastId() {
+        Book book3 = new Book(3L, "Book3", "Author3", BigDecimal.valueOf(10));
+        Book book4 = new Book(4L, "Book4", "Author4", BigDecimal.valueOf(10));
+        Book book5 = new Book(5L, "Book5", "Author5", BigDecimal.valueOf(10));
+        String cursor = BookCursor.after(2L).encode();
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(5L));
+        when(repository.findFilteredAfter(BookFilter.none(), 2L, 3, BookProjection.FULL))
+                .thenReturn(full(book3, book4, book5));
+
+        StepVerifier.create(service.getAll(0, 2, null, null, null, null, null, "full", cursor, null, null))
+                .expectNextMatches(p ->
+                        p.getBooks().size() == 2 &&
+                                ((BookFullDto) p.getBooks().get(1)).getId() == 4L &&
+                                BookCursor.decode(p.getNextCursor()).getLastId() == 4L &&
+                                p.getPage() == null &&
+                                p.getSize() == 2 &&
+                                p.getTotalPages() == 3L
+                )
+                .verifyComplete();
+
+        verify(repository, never()).findFiltered(any(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void testGetAllWithCursorOnLastPageHasNoNextCursor() {
+        Book book3 = new Book(3L, "Book3", "Author3", BigDecimal.valueOf(10));
+        String cursor = BookCursor.after(2L).encode();
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(3L));
+        when(repository.findFilteredAfter(BookFilter.none(), 2L, 3, BookProjection.FULL))
+                .thenReturn(full(book3));
+
+        StepVerifier.create(service.getAll(0, 2, null, null, null, null, null, "full", cursor, null, null))
+                .expectNextMatches(p -> p.getBooks().size() == 1 && p.getNextCursor() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetAllWithInvalidCursorShouldFail() {
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", "not-a-cursor", null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(repository, never()).countFiltered(any());
+    }
+
+    @Test
+    void testGetAllWithEstimatedTotalProbesForNextPage() {
+        Book book1 = new Book(1L, "Book1", "Author1", BigDecimal.valueOf(10));
+        Book book2 = new Book(2L, "Book2", "Author2", BigDecimal.valueOf(15));
+        Book book3 = new Book(3L, "Book3", "Author3", BigDecimal.valueOf(15));
+
+        when(repository.estimateFiltered(new BookFilter(null, "Book", null, null, null))).thenReturn(Mono.just(40L));
+        when(repository.findFiltered(new BookFilter(null, "Book", null, null, null), 2L, 3, BookProjection.FULL))
+                .thenReturn(full(book1, book2, book3));
+
+        StepVerifier.create(service.getAll(1, 2, null, "Book", null, null, null, "full", null, "estimate", null))
+                .expectNextMatches(p ->
+                        p.getTotal() == 40L &&
+                                p.isTotalEstimated() &&
+                                p.isHasNext() &&
+                                p.getBooks().size() == 2 &&
+                                p.getPage() == 1 &&
+                                p.getSize() == 2 &&
+                                p.getTotalPages() == 20L
+                )
+                .verifyComplete();
+
+        verify(repository, never()).countFiltered(any());
+    }
+
+    @Test
+    void testGetAllWithoutTotalSkipsCount() {
+        Book book1 = new Book(1L, "Book1", "Author1", BigDecimal.valueOf(10));
+
+        when(repository.findFiltered(BookFilter.none(), 0L, 6, BookProjection.FULL))
+                .thenReturn(full(book1));
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, "none", null))
+                .expectNextMatches(p ->
+                        p.getTotal() == null &&
+                                !p.isHasNext() &&
+                                p.getNextCursor() == null &&
+                                p.getBooks().size() == 1 &&
+                                p.getSize() == 5 &&
+                                p.getTotalPages() == null
+                )
+                .verifyComplete();
+
+        verify(repository, never()).countFiltered(any());
+        verify(repository, never()).estimateFiltered(any());
+    }
+
+    @Test
+    void testGetAllWithInvalidPageOrSizeShouldFail() {
+
+        StepVerifier.create(service.getAll(-1, 5, null, null, null, null, null, "full", null, null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.getAll(0, 0, null, null, null, null, null, "full", null, null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        // Above bookcatalog.listing.max-page-size, up to where size + 1 would overflow
+        StepVerifier.create(service.getAll(0, 101, null, null, null, null, null, "full", null, null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.getAll(0, Integer.MAX_VALUE, null, null, null, null, null, "full", null, null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(repository, never()).countFiltered(any());
+    }
+
+    @Test
+    void testGetAllWithUnknownTotalModeShouldFail() {
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, "sometimes", null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void testGetAllWithFullTextQueryUsesRankedSearch() {
+        Book book1 = new Book(1L, "Reactive Spring", "Josh Long", BigDecimal.valueOf(49));
+
+        when(repository.countFiltered(new BookFilter("reactive", null, null, null, null))).thenReturn(Mono.just(1L));
+        when(repository.findFiltered(new BookFilter("reactive", null, null, null, null), 0L, 5, BookProjection.FULL))
+                .thenReturn(full(book1));
+
+        StepVerifier.create(service.getAll(0, 5, "reactive", null, null, null, null, "full", null, null, null))
+                .expectNextMatches(p ->
+                        p.getTotal() == 1 &&
+                                ((BookFullDto) p.getBooks().get(0)).getTitle().equals("Reactive Spring") &&
+                                p.getNextCursor() == null
+                )
+                .verifyComplete();
+
+        verify(repository).findFiltered(new BookFilter("reactive", null, null, null, null), 0L, 5, BookProjection.FULL);
+    }
+
+    @Test
+    void testGetAllWithFieldsReadsOnlyThoseColumns() {
+        BookProjection<Map<String, Object>> projection =
+                BookProjection.of(EnumSet.of(BookField.ID, BookField.TITLE, BookField.PRICE));
+        Map<String, Object> row = Map.of("id", 1L, "title", "Book1", "price", BigDecimal.TEN);
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(1L));
+        when(repository.findFiltered(BookFilter.none(), 0L, 5, projection)).thenReturn(Flux.just(row));
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "minimal", null, null, "title,price"))
+                .expectNextMatches(p -> p.getBooks().equals(List.of(row)))
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetAllWritesRowsStraightToJsonWhenEnabled() throws Exception {
+        BookServiceImpl direct = new BookServiceImpl(repository, Optional.empty(), Optional.empty(),
+                validator, new BatchProperties(2), new ListingProperties(true, 100, Duration.ofMinutes(1)), new DatabaseRouting(Duration.ZERO));
+        Book b1 = new Book(1L, "Book1", "Author1", BigDecimal.TEN);
+        Book b2 = new Book(2L, "Book2", "Author2", BigDecimal.ONE);
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(5L));
+        when(repository.writeFiltered(eq(BookFilter.none()), eq(0L), eq(2), any())).thenAnswer(invocation -> {
+            BookJsonRows rows = invocation.getArgument(3);
+            Stream.of(b1, b2).forEach(book -> rows.write(field -> column(field, book)));
+            return Mono.fromSupplier(rows::finish);
+        });
+
+        PaginatedBooks page = direct.getAll(0, 2, null, null, null, null, null, "minimal", null, null, null).block();
+        JsonNode json = new ObjectMapper().valueToTree(page);
+
+        assertEquals("[{\"id\":1,\"title\":\"Book1\",\"author\":\"Author1\"},"
+                + "{\"id\":2,\"title\":\"Book2\",\"author\":\"Author2\"}]", json.get("books").toString());
+        assertEquals(5L, json.get("total").asLong());
+        assertEquals(3L, json.get("totalPages").asLong());
+        assertEquals(0, json.get("page").asInt());
+        assertEquals(2, json.get("size").asInt());
+        assertEquals(BookCursor.after(2L).encode(), page.getNextCursor());
+        verify(repository, never()).findFiltered(any(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void testGetAllWithUnknownFieldShouldFail() {
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, "isbn"))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(repository, never()).countFiltered(any());
+    }
+
+    @Test
+    void testGetAllWithFullTextQueryAndCursorShouldFail() {
+        String cursor = BookCursor.after(2L).encode();
+
+        StepVerifier.create(service.getAll(0, 5, "reactive", null, null, null, null, "full", cursor, null, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void testGetByIdServesRepeatedLookupsFromCache() {
+        Book book = stored(new Book(1L, "Title 1", "Author 1", BigDecimal.valueOf(20)));
+        when(repository.findById(1L)).thenReturn(Mono.just(book));
+
+        StepVerifier.create(service.getById(1L, "full")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.getById(1L, "minimal")).expectNextCount(1).verifyComplete();
+
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testUpdateInvalidatesCachedBook() {
+        Book cached = stored(new Book(1L, "Old Title", "Author", BigDecimal.valueOf(15)));
+        Book updated = stored(new Book(1L, "New Title", "Author", BigDecimal.valueOf(15)));
+        BookDto updatedDto = new BookDto(1L, "New Title", "Author", BigDecimal.valueOf(15), LocalDate.now());
+
+        when(repository.findById(1L)).thenReturn(Mono.just(cached), Mono.just(updated));
+        when(repository.updateReturning(any(Book.class))).thenReturn(Mono.just(updated));
+
+        StepVerifier.create(service.getById(1L, "full")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.update(1L, updatedDto, null)).expectNextCount(1).verifyComplete();
+
+        StepVerifier.create(service.getById(1L, "full"))
+                .expectNextMatches(b -> ((BookFullDto) b.body()).getTitle().equals("New Title"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testDeleteInvalidatesCachedBook() {
+        Book book = stored(new Book(1L, "Title 1", "Author 1", BigDecimal.valueOf(20)));
+
+        when(repository.findById(1L)).thenReturn(Mono.just(book), Mono.empty());
+        when(repository.deleteReturningId(1L, null)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(service.getById(1L, "full")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.delete(1L, null)).verifyComplete();
+
+        StepVerifier.create(service.getById(1L, "full"))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testGetAllServesRepeatedPagesFromCache() {
+        Book book1 = new Book(1L, "Book1", "Author1", BigDecimal.valueOf(10));
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(1L));
+        when(repository.findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL)).thenReturn(full(book1));
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextCount(1)
+                .verifyComplete();
+        // Blank filters and dto casing normalize to the same key
+        StepVerifier.create(service.getAll(0, 5, null, "", " ", null, null, "FULL", null, "exact", null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(repository, times(1)).countFiltered(BookFilter.none());
+        verify(repository, times(1)).findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL);
+    }
+
+    @Test
+    void testCreateInvalidatesCachedPages() {
+        Book book1 = new Book(1L, "Book1", "Author1", BigDecimal.valueOf(10));
+        Book book2 = new Book(2L, "Book2", "Author2", BigDecimal.valueOf(10));
+
+        when(repository.countFiltered(BookFilter.none())).thenReturn(Mono.just(1L), Mono.just(2L));
+        when(repository.findFiltered(BookFilter.none(), 0L, 5, BookProjection.FULL))
+                .thenReturn(full(book1), full(book1, book2));
+        when(repository.save(any(Book.class))).thenReturn(Mono.just(book2));
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextMatches(p -> p.getTotal() == 1)
+                .verifyComplete();
+        StepVerifier.create(service.create(service.toDto(book2)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(service.getAll(0, 5, null, null, null, null, null, "full", null, null, null))
+                .expectNextMatches(p -> p.getTotal() == 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetByIdCoalescesConcurrentLookupsWithoutCache() {
+        BookServiceImpl uncached = new BookServiceImpl(repository, Optional.empty(), Optional.empty(),
+                validator, new BatchProperties(2), new ListingProperties(false, 100, Duration.ofMinutes(1)), new DatabaseRouting(Duration.ZERO));
+        Book book = stored(new Book(1L, "Title 1", "Author 1", BigDecimal.valueOf(20)));
+        Sinks.One<Book> result = Sinks.one();
+
+        when(repository.findById(1L)).thenReturn(result.asMono());
+
+        StepVerifier first = StepVerifier.create(uncached.getById(1L, "full")).expectNextCount(1).expectComplete();
+        StepVerifier second = StepVerifier.create(uncached.getById(1L, "minimal")).expectNextCount(1).expectComplete();
+
+        Mono.when(Mono.fromRunnable(first::verify).subscribeOn(Schedulers.boundedElastic()),
+                        Mono.fromRunnable(second::verify).subscribeOn(Schedulers.boundedElastic()),
+                        Mono.delay(Duration.ofMillis(200)).doOnNext(t -> result.tryEmitValue(book)))
+                .block(Duration.ofSeconds(5));
+
+        verify(repository, times(1)).findById(1L);
+
+        // Nothing is kept once the shared load has finished
+        when(repository.findById(1L)).thenReturn(Mono.just(book));
+        StepVerifier.create(uncached.getById(1L, "full")).expectNextCount(1).verifyComplete();
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testCreateAllInsertsValidRowsInChunksAndReportsEachItem() {
+        BookDto first = new BookDto(null, "First", "Author", BigDecimal.TEN, LocalDate.now());
+        BookDto invalid = new BookDto(null, "", "Author", BigDecimal.TEN, LocalDate.now());
+        BookDto third = new BookDto(null, "Third", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(repository.insertAll(anyList()))
+                .thenReturn(Flux.just(10L), Flux.just(11L));
+
+        StepVerifier.create(service.createAll(Flux.just(first, invalid, third)))
+                .expectNext(BatchItemResult.created(0, 10L))
+                .expectNextMatches(r -> r.index() == 1 &&
+                        r.status() == BatchItemResult.Status.INVALID &&
+                        r.errors().stream().anyMatch(e -> e.startsWith("title")))
+                .expectNext(BatchItemResult.created(2, 11L))
+                .verifyComplete();
+
+        // chunk size is 2: [first, invalid] then [third]
+        verify(repository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void testCreateAllMarksWholeChunkFailedWhenInsertFails() {
+        BookDto first = new BookDto(null, "First", "Author", BigDecimal.TEN, LocalDate.now());
+        BookDto second = new BookDto(null, "Second", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(repository.insertAll(anyList()))
+                .thenReturn(Flux.error(new DataIntegrityViolationException("duplicate")));
+
+        StepVerifier.create(service.createAll(Flux.just(first, second)))
+                .expectNext(BatchItemResult.failed(0, "Database integrity violation"))
+                .expectNext(BatchItemResult.failed(1, "Database integrity violation"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testStreamReadsEveryRowWithoutCollecting() {
+        Book book1 = new Book(1L, "Book1", "Author1", BigDecimal.valueOf(10));
+        Book book2 = new Book(2L, "Book2", "Author2", BigDecimal.valueOf(15));
+        BookFilter filter = new BookFilter(null, "Book", null, null, null);
+
+        when(repository.streamFiltered(filter, BookProjection.FULL)).thenReturn(full(book1, book2));
+
+        StepVerifier.create(service.stream(null, "Book", null, null, null), 1)
+                .expectNextMatches(b -> b.getId() == 1L)
+                .thenRequest(1)
+                .expectNextMatches(b -> b.getId() == 2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testStreamFromAfterToShouldFail() {
+
+        StepVerifier.create(service.stream(null, null, null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)))
                 .expectError(IllegalArgumentException.class)
                 .verify();
 
-        verify(repository, never()).countFiltered(any(), any(), any(), any());
+        verify(repository, never()).streamFiltered(any(), any());
+    }
+
+    @Test
+    void testUpdateAllAppliesChunksAndReportsMissingIds() {
+        BookPatchDto first = new BookPatchDto(1L, "New title", null, null, null);
+        BookPatchDto second = new BookPatchDto(2L, null, null, BigDecimal.ONE, null);
+        BookPatchDto third = new BookPatchDto(3L, null, "New author", null, null);
+
+        when(repository.updateAll(anyList()))
+                .thenReturn(Flux.just(1L), Flux.just(3L));
+
+        StepVerifier.create(service.updateAll(Flux.just(first, second, third)))
+                .expectNext(BatchWriteResult.ofIds(2, List.of(2L)))
+                .verifyComplete();
+
+        // chunk size is 2: [1, 2] then [3]
+        verify(repository, times(2)).updateAll(anyList());
+    }
+
+    @Test
+    void testUpdateAllWithInvalidPatchWritesNothing() {
+        BookPatchDto valid = new BookPatchDto(1L, "Title", null, null, null);
+        BookPatchDto blankTitle = new BookPatchDto(2L, " ", null, null, null);
+
+        StepVerifier.create(service.updateAll(Flux.just(valid, blankTitle)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(repository, never()).updateAll(anyList());
+    }
+
+    @Test
+    void testUpdateAllStopsAtInvalidChunkAfterApplyingEarlierOnes() {
+        BookPatchDto first = new BookPatchDto(1L, "A", null, null, null);
+        BookPatchDto second = new BookPatchDto(2L, "B", null, null, null);
+        BookPatchDto blankTitle = new BookPatchDto(3L, " ", null, null, null);
+
+        when(repository.updateAll(anyList())).thenReturn(Flux.just(1L, 2L));
+
+        // chunk size is 2: [1, 2] is written before [3] is read and rejected
+        StepVerifier.create(service.updateAll(Flux.just(first, second, blankTitle)))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().startsWith("Invalid item 2")
+                        && e.getMessage().contains("2 books from earlier chunks were already updated"))
+                .verify();
+
+        verify(repository, times(1)).updateAll(anyList());
+    }
+
+    @Test
+    void testUpdateAllWithDuplicateIdShouldFail() {
+        BookPatchDto first = new BookPatchDto(1L, "A", null, null, null);
+        BookPatchDto again = new BookPatchDto(1L, "B", null, null, null);
+
+        StepVerifier.create(service.updateAll(Flux.just(first, again)))
+                .expectErrorMessage("Duplicate id in batch: 1")
+                .verify();
+    }
+
+    @Test
+    void testUpdateAllInvalidatesCachedBooks() {
+        Book book = stored(new Book(1L, "Old", "Author", BigDecimal.TEN));
+        when(repository.findById(1L)).thenReturn(Mono.just(book));
+        StepVerifier.create(service.getById(1L, "full")).expectNextCount(1).verifyComplete();
+
+        when(repository.updateAll(anyList())).thenReturn(Flux.just(1L));
+        StepVerifier.create(service.updateAll(Flux.just(new BookPatchDto(1L, "New", null, null, null))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(service.getById(1L, "full")).expectNextCount(1).verifyComplete();
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testDeleteAllByIdsReportsMissingIds() {
+
+        when(repository.deleteByIds(anyList()))
+                .thenReturn(Flux.just(1L, 2L), Flux.empty());
+
+        StepVerifier.create(service.deleteAll(new BookBatchDeleteDto(List.of(1L, 2L, 3L))))
+                .expectNext(BatchWriteResult.ofIds(2, List.of(3L)))
+                .verifyComplete();
+
+        verify(repository, times(2)).deleteByIds(anyList());
+    }
+
+    @Test
+    void testDeleteAllByFilterRepeatsUntilShortChunk() {
+        BookBatchDeleteDto request = new BookBatchDeleteDto();
+        request.setAuthor("Tolkien");
+        BookFilter filter = new BookFilter(null, null, "Tolkien", null, null);
+
+        when(repository.deleteFiltered(filter, 2))
+                .thenReturn(Flux.just(1L, 2L), Flux.just(3L));
+
+        StepVerifier.create(service.deleteAll(request))
+                .expectNext(BatchWriteResult.ofFilter(3))
+                .verifyComplete();
+
+        verify(repository, times(2)).deleteFiltered(filter, 2);
+    }
+
+    @Test
+    void testDeleteAllRequiresEitherIdsOrFilter() {
+        BookBatchDeleteDto both = new BookBatchDeleteDto(List.of(1L));
+        both.setTitle("Java");
+
+        StepVerifier.create(service.deleteAll(new BookBatchDeleteDto()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.deleteAll(both))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(repository, never()).deleteByIds(anyList());
+        verify(repository, never()).deleteFiltered(any(), anyInt());
+    }
+
+    @Test
+    void testUpdateWithStaleVersionFailsPrecondition() {
+        BookDto updatedDto = new BookDto(1L, "New Title", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(repository.updateReturning(any(Book.class))).thenReturn(Mono.empty());
+        when(repository.existsById(1L)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(service.update(1L, updatedDto, 3L))
+                .expectError(PreconditionFailedException.class)
+                .verify();
+
+        verify(repository).updateReturning(argThat(book -> book.getVersion() == 3L));
+    }
+
+    @Test
+    void testUpdateWithVersionOfMissingBookIsNotFound() {
+        BookDto updatedDto = new BookDto(1L, "New Title", "Author", BigDecimal.TEN, LocalDate.now());
+
+        when(repository.updateReturning(any(Book.class))).thenReturn(Mono.empty());
+        when(repository.existsById(1L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(service.update(1L, updatedDto, 3L))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testDeleteWithStaleVersionFailsPrecondition() {
+
+        when(repository.deleteReturningId(1L, 3L)).thenReturn(Mono.empty());
+        when(repository.existsById(1L)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(service.delete(1L, 3L))
+                .expectError(PreconditionFailedException.class)
+                .verify();
+    }
+
+    // Rows read back from the database always carry a version
+    private static Book stored(Book book) {
+        book.setVersion(0L);
+        return book;
+    }
+
+    // Listing rows come back from the repository already projected
+    private static Object column(BookField field, Book book) {
+        return switch (field) {
+            case ID -> book.getId();
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case PRICE -> book.getPrice();
+            case PUBLISH_DATE -> book.getPublishDate();
+        };
+    }
+
+    private static Flux<BookFullDto> full(Book... books) {
+        return Flux.just(books).map(BookMapper::toFullDto);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.bookcatalog.services;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void shouldShareInFlightLoadBetweenSubscribers() {
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("k", () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = singleFlight.execute("k", () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        first.subscribe(received::add);
+        second.subscribe(received::add);
+        result.tryEmitValue("value");
+
+        assertEquals(List.of("value", "value"), received);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldReleaseKeyOnceLoadTerminates() {
+        AtomicInteger loads = new AtomicInteger();
+
+        StepVerifier.create(singleFlight.execute("k", () -> Mono.fromCallable(() -> "v" + loads.incrementAndGet())))
+                .expectNext("v1")
+                .verifyComplete();
+        StepVerifier.create(singleFlight.execute("k", () -> Mono.fromCallable(() -> "v" + loads.incrementAndGet())))
+                .expectNext("v2")
+                .verifyComplete();
+
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void shouldNotKeepFailedLoads() {
+
+        StepVerifier.create(singleFlight.execute("k", () -> Mono.<String>error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(singleFlight.execute("k", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldStartNewLoadAfterForget() {
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> stale = Sinks.one();
+
+        singleFlight.execute("k", () -> {
+            loads.incrementAndGet();
+            return stale.asMono();
+        }).subscribe();
+
+        singleFlight.forget("k");
+
+        StepVerifier.create(singleFlight.execute("k", () -> {
+                    loads.incrementAndGet();
+                    return Mono.just("fresh");
+                }))
+                .expectNext("fresh")
+                .verifyComplete();
+
+        stale.tryEmitValue("stale");
+        assertEquals(2, loads.get());
+    }
+}